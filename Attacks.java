@@ -0,0 +1,367 @@
+/**
+ * Hilfsfunktionen zum Berechnen von Angriffsfeldern auf Bitboards.
+ * Feld-Index ist {@code row * 8 + col}, Feld 0 ist a1 und Feld 63 ist h8.
+ */
+public final class Attacks {
+    /**
+     * Alle Felder ausser der A-Linie.
+     */
+    static final long NOT_A_FILE = 0xfefefefefefefefeL;
+    /**
+     * Alle Felder ausser der H-Linie.
+     */
+    static final long NOT_H_FILE = 0x7f7f7f7f7f7f7f7fL;
+    /**
+     * Alle Felder ausser der A- und B-Linie.
+     */
+    static final long NOT_AB_FILE = 0xfcfcfcfcfcfcfcfcL;
+    /**
+     * Alle Felder ausser der G- und H-Linie.
+     */
+    static final long NOT_GH_FILE = 0x3f3f3f3f3f3f3f3fL;
+
+    /**
+     * Angriffsfelder von Springer und König je Feld.
+     */
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    /**
+     * Schlagfelder der Bauern je Farbe und Feld.
+     */
+    private static final long[][] PAWN = new long[2][64];
+
+    /**
+     * Die Felder echt zwischen zwei Feldern auf einer gemeinsamen Linie, sonst 0.
+     */
+    private static final long[][] BETWEEN = new long[64][64];
+    /**
+     * Die ganze Linie (Reihe, Linie oder Diagonale) durch zwei Felder, sonst 0.
+     */
+    private static final long[][] LINE = new long[64][64];
+
+    /**
+     * Magic-Bitboards für Türme: relevante Belegung, Magic-Zahl, Shift und Startindex in die gemeinsame Tabelle.
+     * Die Magic-Zahlen wurden einmalig per Zufallssuche gefunden; beim Aufbau wird jede Zahl erneut geprüft.
+     */
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] ROOK_MAGICS = {
+        0x0a80004000801220L, 0x8040004010002008L, 0x2080200010008008L, 0x1100100008210004L,
+        0xc200209084020008L, 0x2100010004000208L, 0x0400081000822421L, 0x0200010422048844L,
+        0x0800800080400024L, 0x0001402000401000L, 0x3000801000802001L, 0x4400800800100083L,
+        0x0904802402480080L, 0x4040800400020080L, 0x0018808042000100L, 0x4040800080004100L,
+        0x0040048001458024L, 0x00a0004000205000L, 0x3100808010002000L, 0x4825010010000820L,
+        0x5004808008000401L, 0x2024818004000a00L, 0x0005808002000100L, 0x2100060004806104L,
+        0x0080400880008421L, 0x4062220600410280L, 0x010a004a00108022L, 0x0000100080080080L,
+        0x0021000500080010L, 0x0044000202001008L, 0x0000100400080102L, 0xc020128200040545L,
+        0x0080002000400040L, 0x0000804000802004L, 0x0000120022004080L, 0x010a386103001001L,
+        0x9010080080800400L, 0x8440020080800400L, 0x0004228824001001L, 0x000000490a000084L,
+        0x0080002000504000L, 0x200020005000c000L, 0x0012088020420010L, 0x0010010080080800L,
+        0x0085001008010004L, 0x0002000204008080L, 0x0040413002040008L, 0x0000304081020004L,
+        0x0080204000800080L, 0x3008804000290100L, 0x1010100080200080L, 0x2008100208028080L,
+        0x5000850800910100L, 0x8402019004680200L, 0x0120911028020400L, 0x0000008044010200L,
+        0x0020850200244012L, 0x0020850200244012L, 0x0000102001040841L, 0x140900040a100021L,
+        0x000200282410a102L, 0x000200282410a102L, 0x000200282410a102L, 0x4048240043802106L
+    };
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE = new long[102400];
+
+    /**
+     * Magic-Bitboards für Läufer, aufgebaut wie bei den Türmen.
+     */
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final long[] BISHOP_MAGICS = {
+        0x40106000a1160020L, 0x0020010250810120L, 0x2010010220280081L, 0x002806004050c040L,
+        0x0002021018000000L, 0x2001112010000400L, 0x0881010120218080L, 0x1030820110010500L,
+        0x0000120222042400L, 0x2000020404040044L, 0x8000480094208000L, 0x0003422a02000001L,
+        0x000a220210100040L, 0x8004820202226000L, 0x0018234854100800L, 0x0100004042101040L,
+        0x0004001004082820L, 0x0010000810010048L, 0x1014004208081300L, 0x2080818802044202L,
+        0x0040880c00a00100L, 0x0080400200522010L, 0x0001000188180b04L, 0x0080249202020204L,
+        0x1004400004100410L, 0x00013100a0022206L, 0x2148500001040080L, 0x4241080011004300L,
+        0x4020848004002000L, 0x10101380d1004100L, 0x0008004422020284L, 0x01010a1041008080L,
+        0x0808080400082121L, 0x0808080400082121L, 0x0091128200100c00L, 0x0202200802010104L,
+        0x8c0a020200440085L, 0x01a0008080b10040L, 0x0889520080122800L, 0x100902022202010aL,
+        0x04081a0816002000L, 0x0000681208005000L, 0x8170840041008802L, 0x0a00004200810805L,
+        0x0830404408210100L, 0x2602208106006102L, 0x1048300680802628L, 0x2602208106006102L,
+        0x0602010120110040L, 0x0941010801043000L, 0x000040440a210428L, 0x0008240020880021L,
+        0x0400002012048200L, 0x00ac102001210220L, 0x0220021002009900L, 0x84440c080a013080L,
+        0x0001008044200440L, 0x0004c04410841000L, 0x2000500104011130L, 0x1a0c010011c20229L,
+        0x0044800112202200L, 0x0434804908100424L, 0x0300404822c08200L, 0x48081010008a2a80L
+    };
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] BISHOP_TABLE = new long[5248];
+
+    /**
+     * Die Dauer des Tabellenaufbaus in Nanosekunden.
+     */
+    private static final long INIT_NANOS;
+
+    static {
+        long start = System.nanoTime();
+        for (int square = 0; square < 64; square++) {
+            long b = 1L << square;
+            KNIGHT[square] = ((b << 17) & NOT_A_FILE) | ((b << 15) & NOT_H_FILE)
+                           | ((b << 10) & NOT_AB_FILE) | ((b << 6) & NOT_GH_FILE)
+                           | ((b >>> 17) & NOT_H_FILE) | ((b >>> 15) & NOT_A_FILE)
+                           | ((b >>> 10) & NOT_GH_FILE) | ((b >>> 6) & NOT_AB_FILE);
+            KING[square] = (b << 8) | (b >>> 8)
+                         | (((b << 1) | (b << 9) | (b >>> 7)) & NOT_A_FILE)
+                         | (((b >>> 1) | (b >>> 9) | (b << 7)) & NOT_H_FILE);
+            PAWN[Board.WHITE][square] = ((b << 9) & NOT_A_FILE) | ((b << 7) & NOT_H_FILE);
+            PAWN[Board.BLACK][square] = ((b >>> 7) & NOT_A_FILE) | ((b >>> 9) & NOT_H_FILE);
+        }
+
+        int rookOffset = 0;
+        int bishopOffset = 0;
+        for (int square = 0; square < 64; square++) {
+            rookOffset = initMagic(square, true, rookOffset, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS, ROOK_TABLE);
+            bishopOffset = initMagic(square, false, bishopOffset, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS, BISHOP_TABLE);
+        }
+
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                if (a == b) {
+                    continue;
+                }
+                long bits = 1L << a | 1L << b;
+                if ((rook(a, 0L) & 1L << b) != 0) {
+                    BETWEEN[a][b] = rook(a, 1L << b) & rook(b, 1L << a);
+                    LINE[a][b] = rook(a, 0L) & rook(b, 0L) | bits;
+                } else if ((bishop(a, 0L) & 1L << b) != 0) {
+                    BETWEEN[a][b] = bishop(a, 1L << b) & bishop(b, 1L << a);
+                    LINE[a][b] = bishop(a, 0L) & bishop(b, 0L) | bits;
+                }
+            }
+        }
+        INIT_NANOS = System.nanoTime() - start;
+    }
+
+    private Attacks() {
+        // Nur statische Methoden
+    }
+
+    /**
+     * Gibt die Felder echt zwischen zwei Feldern zurück, wenn sie auf einer Reihe, Linie oder Diagonale liegen.
+     *
+     * @param a Das erste Feld.
+     * @param b Das zweite Feld.
+     * @return Die Felder dazwischen oder 0, wenn die Felder nicht auf einer Linie liegen.
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * Gibt die ganze Reihe, Linie oder Diagonale durch zwei Felder zurück.
+     *
+     * @param a Das erste Feld.
+     * @param b Das zweite Feld.
+     * @return Die Linie über das ganze Brett oder 0, wenn die Felder nicht auf einer Linie liegen.
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    /**
+     * Gibt die Felder zurück, die ein Springer auf dem angegebenen Feld angreift.
+     *
+     * @param square Das Feld des Springers.
+     * @return Die angegriffenen Felder als Bitboard.
+     */
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    /**
+     * Gibt die Felder zurück, die ein König auf dem angegebenen Feld angreift.
+     *
+     * @param square Das Feld des Königs.
+     * @return Die angegriffenen Felder als Bitboard.
+     */
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * Gibt die Felder zurück, die ein Bauer der angegebenen Farbe schlagen kann.
+     * Umgekehrt stehen auf {@code pawn(1 - color, square)} die Bauern der Farbe {@code color}, die das Feld angreifen.
+     *
+     * @param color  Die Farbe des Bauern ({@link Board#WHITE} oder {@link Board#BLACK}).
+     * @param square Das Feld des Bauern.
+     * @return Die angegriffenen Felder als Bitboard.
+     */
+    public static long pawn(int color, int square) {
+        return PAWN[color][square];
+    }
+
+    /**
+     * Gibt alle Felder zurück, die von mindestens einem der Bauern angegriffen werden.
+     *
+     * @param color Die Farbe der Bauern.
+     * @param pawns Die Felder der Bauern als Bitboard.
+     * @return Die angegriffenen Felder als Bitboard.
+     */
+    public static long pawns(int color, long pawns) {
+        return color == Board.WHITE
+                ? (pawns << 9 & NOT_A_FILE) | (pawns << 7 & NOT_H_FILE)
+                : (pawns >>> 7 & NOT_A_FILE) | (pawns >>> 9 & NOT_H_FILE);
+    }
+
+    /**
+     * Gibt die Felder zurück, die ein Turm auf dem angegebenen Feld bei der gegebenen Belegung angreift.
+     * Die erste besetzte Figur auf jedem Strahl ist enthalten.
+     *
+     * @param square   Das Feld des Turms.
+     * @param occupied Alle besetzten Felder.
+     * @return Die angegriffenen Felder als Bitboard.
+     */
+    public static long rook(int square, long occupied) {
+        return ROOK_TABLE[ROOK_OFFSETS[square] + (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    /**
+     * Gibt die Felder zurück, die ein Läufer auf dem angegebenen Feld bei der gegebenen Belegung angreift.
+     *
+     * @param square   Das Feld des Läufers.
+     * @param occupied Alle besetzten Felder.
+     * @return Die angegriffenen Felder als Bitboard.
+     */
+    public static long bishop(int square, long occupied) {
+        return BISHOP_TABLE[BISHOP_OFFSETS[square] + (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    /**
+     * Gibt die Felder zurück, die eine Dame auf dem angegebenen Feld bei der gegebenen Belegung angreift.
+     *
+     * @param square   Das Feld der Dame.
+     * @param occupied Alle besetzten Felder.
+     * @return Die angegriffenen Felder als Bitboard.
+     */
+    public static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    /**
+     * Gibt den Speicherbedarf aller Angriffstabellen in Bytes zurück.
+     *
+     * @return Die Größe der Tabellen in Bytes.
+     */
+    public static long tableBytes() {
+        long longs = ROOK_TABLE.length + BISHOP_TABLE.length + 4 * 64 + 2 * 64 * 64 + 4 * 64;
+        long ints = 4 * 64;
+        return longs * 8 + ints * 4;
+    }
+
+    /**
+     * Gibt zurück, wie lange der Aufbau der Angriffstabellen gedauert hat.
+     *
+     * @return Die Dauer in Nanosekunden.
+     */
+    public static long initNanos() {
+        return INIT_NANOS;
+    }
+
+    /**
+     * Gibt Größe und Aufbauzeit der Angriffstabellen als Text zurück.
+     *
+     * @return Eine Beschreibung wie "Angriffstabellen: 873 KB, aufgebaut in 12.3 ms".
+     */
+    public static String describeTables() {
+        return String.format("Angriffstabellen: %d KB, aufgebaut in %.1f ms", tableBytes() / 1024, INIT_NANOS / 1e6);
+    }
+
+    /**
+     * Füllt für ein Feld den zugehörigen Teil der Angriffstabelle.
+     *
+     * @return Der Startindex für das nächste Feld.
+     */
+    private static int initMagic(int square, boolean straight, int offset,
+                                 long[] masks, long[] magics, int[] shifts, int[] offsets, long[] table) {
+        long mask = straight ? relevantRookMask(square) : relevantBishopMask(square);
+        int bits = Long.bitCount(mask);
+        int size = 1 << bits;
+        boolean[] used = new boolean[size];
+        masks[square] = mask;
+        shifts[square] = 64 - bits;
+        offsets[square] = offset;
+
+        // Alle Teilmengen der Maske durchlaufen (Carry-Rippler)
+        long subset = 0L;
+        for (int i = 0; i < size; i++) {
+            long attacks = straight ? slidingRook(square, subset) : slidingBishop(square, subset);
+            int index = (int) ((subset * magics[square]) >>> (64 - bits));
+            if (used[index] && table[offset + index] != attacks) {
+                throw new IllegalStateException("Ungültige Magic-Zahl für Feld " + square);
+            }
+            used[index] = true;
+            table[offset + index] = attacks;
+            subset = (subset - mask) & mask;
+        }
+        return offset + size;
+    }
+
+    /**
+     * Die Felder, deren Belegung den Turmangriff beeinflusst (ohne Randfelder).
+     */
+    private static long relevantRookMask(int square) {
+        return maskRay(square, 1, 0) | maskRay(square, -1, 0) | maskRay(square, 0, 1) | maskRay(square, 0, -1);
+    }
+
+    /**
+     * Die Felder, deren Belegung den Läuferangriff beeinflusst (ohne Randfelder).
+     */
+    private static long relevantBishopMask(int square) {
+        return maskRay(square, 1, 1) | maskRay(square, 1, -1) | maskRay(square, -1, 1) | maskRay(square, -1, -1);
+    }
+
+    /**
+     * Berechnet den Turmangriff langsam über die Strahlen; nur für den Tabellenaufbau.
+     */
+    private static long slidingRook(int square, long occupied) {
+        return ray(square, occupied, 1, 0) | ray(square, occupied, -1, 0)
+             | ray(square, occupied, 0, 1) | ray(square, occupied, 0, -1);
+    }
+
+    /**
+     * Berechnet den Läuferangriff langsam über die Strahlen; nur für den Tabellenaufbau.
+     */
+    private static long slidingBishop(int square, long occupied) {
+        return ray(square, occupied, 1, 1) | ray(square, occupied, 1, -1)
+             | ray(square, occupied, -1, 1) | ray(square, occupied, -1, -1);
+    }
+
+    /**
+     * Läuft einen Strahl vom Feld aus ab, bis der Rand oder eine Figur erreicht ist.
+     */
+    private static long ray(int square, long occupied, int rowStep, int colStep) {
+        long attacks = 0L;
+        int row = square / 8 + rowStep;
+        int col = square % 8 + colStep;
+        while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+            long bit = 1L << (row * 8 + col);
+            attacks |= bit;
+            if ((occupied & bit) != 0) {
+                break;
+            }
+            row += rowStep;
+            col += colStep;
+        }
+        return attacks;
+    }
+
+    /**
+     * Läuft einen Strahl vom Feld aus ab und lässt das letzte Feld vor dem Rand weg.
+     */
+    private static long maskRay(int square, int rowStep, int colStep) {
+        long mask = 0L;
+        int row = square / 8 + rowStep;
+        int col = square % 8 + colStep;
+        while (row + rowStep >= 0 && row + rowStep < 8 && col + colStep >= 0 && col + colStep < 8) {
+            mask |= 1L << (row * 8 + col);
+            row += rowStep;
+            col += colStep;
+        }
+        return mask;
+    }
+}
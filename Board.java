@@ -1,124 +1,1411 @@
-import java.util.NoSuchElementException;
-import java.util.Scanner;
+import java.util.Arrays;
 
 /**
  * Repräsentiert das Schachbrett.
+ * Die Stellung wird intern als Bitboards gehalten (ein {@code long} je Farbe und Figurentyp),
+ * das Feld {@link #board} mit den Figurenobjekten dient als Ansicht für die Oberfläche.
+ * Feld-Index ist {@code row * 8 + col}, Feld 0 ist a1 und Feld 63 ist h8.
  */
 public class Board {
     /**
-     * Das Schachbrett.
+     * Farbindex für Weiß.
      */
-    private static Piece[][] board = new Piece[8][8];
+    public static final int WHITE = 0;
+    /**
+     * Farbindex für Schwarz.
+     */
+    public static final int BLACK = 1;
+
+    /**
+     * Figurentypen als Index in die Bitboards.
+     */
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+    /**
+     * Kein Figurentyp bzw. leeres Feld.
+     */
+    public static final int NONE = 6;
+
+    /**
+     * Rochaderechte als Bitmaske.
+     */
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+
+    /**
+     * Die Grundstellung in FEN.
+     */
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /**
+     * Das Schachbrett. Jede Partie hat ihre eigene Ansicht, damit mehrere Partien in einer JVM laufen können.
+     */
+    private final Piece[][] board = new Piece[8][8];
+    /**
+     * True, wenn die Ansicht nach {@link #setFen(CharSequence)} oder in einer Kopie noch aus den Bitboards
+     * aufgebaut werden muss.
+     */
+    private boolean viewStale;
+
+    /**
+     * Bitboards je Farbe und Figurentyp.
+     */
+    private final long[][] pieces = new long[2][6];
+    /**
+     * Belegte Felder je Farbe.
+     */
+    private final long[] occupancy = new long[2];
+    /**
+     * Alle belegten Felder.
+     */
+    private long occupied;
+    /**
+     * Figurentyp je Feld ({@link #NONE} für leere Felder), damit nicht alle Bitboards durchsucht werden müssen.
+     */
+    private final int[] mailbox = new int[64];
+    /**
+     * Die Farbe, die am Zug ist.
+     */
+    private int sideToMove = WHITE;
+    /**
+     * Die noch erlaubten Rochaden.
+     */
+    private int castlingRights;
+    /**
+     * Das Feld, auf das en passant geschlagen werden kann, oder -1.
+     */
+    private int enPassantSquare = -1;
+    /**
+     * Halbzüge seit dem letzten Bauernzug oder Schlagen (50-Züge-Regel).
+     */
+    private int halfmoveClock;
+    /**
+     * Die Nummer des aktuellen Zuges, beginnt bei 1.
+     */
+    private int fullmoveNumber = 1;
+    /**
+     * Der Zobrist-Schlüssel der Stellung, wird bei jedem Zug per XOR nachgeführt.
+     */
+    private long hash;
+
+    /**
+     * Debug-Modus: nach jedem Zug wird der Schlüssel neu berechnet und mit dem nachgeführten verglichen.
+     * Einschalten mit {@code -Dchess.verifyHash=true}.
+     */
+    private static final boolean VERIFY_HASH = Boolean.getBoolean("chess.verifyHash");
+
+    /**
+     * Die anfängliche Größe der Zugstapel. Sie wachsen bei Bedarf ohne feste Obergrenze, damit eine Partie
+     * nur so viel Speicher belegt, wie sie Züge hat (siehe {@link GameSessionManager}), und auch sehr lange
+     * Partien vollständig zurückgenommen werden können. Die Tiefe der Suche begrenzt {@link Engine#MAX_PLY}.
+     */
+    private static final int INITIAL_PLY = 64;
+    /**
+     * Die ausgeführten Züge, damit sie mit {@link #unmakeMove()} zurückgenommen werden können.
+     */
+    private int[] moveStack;
+    /**
+     * Der nicht umkehrbare Zustand vor jedem Zug: Rochaderechte (Bits 0-3), en-passant-Feld + 1 (Bits 4-10)
+     * und Halbzugzähler (ab Bit 11).
+     */
+    private int[] stateStack;
+    /**
+     * Der Zobrist-Schlüssel vor jedem Zug, damit er beim Zurücknehmen nicht neu berechnet werden muss.
+     */
+    private long[] hashStack;
+    /**
+     * Die Anzahl der Züge auf dem Stapel.
+     */
+    private int ply;
+    /**
+     * Puffer für die legalen Züge in {@link #movePiece} und {@link #findMove(String)}.
+     */
+    private final int[] moveBuffer = new int[Move.MAX_MOVES];
+    /**
+     * Material und Figur-Feld-Werte aus Sicht von Weiß für Mittel- und Endspiel sowie die Spielphase,
+     * nachgeführt in {@link #putPiece} und {@link #removePiece}, siehe {@link Evaluator}.
+     */
+    private int midgameScore;
+    private int endgameScore;
+    private int phase;
+    /**
+     * Der Zobrist-Schlüssel nur der Bauern, für den {@link PawnHashTable}; ändert sich nur bei Bauernzügen
+     * und wenn ein Bauer geschlagen wird.
+     */
+    private long pawnHash;
+    /**
+     * Puffer für die Zwischenstände in {@link #see(int)}; mehr als 32 Schlagzüge auf ein Feld gibt es nicht.
+     */
+    private final int[] seeGain = new int[32];
+
+    /**
+     * Figurenwerte für den Abtausch in {@link #see(int)}; der König ist so viel wert, dass ihn nie jemand schlägt.
+     */
+    private static final int[] SEE_VALUES = {100, 320, 330, 500, 900, 20000};
+
+    /**
+     * Die Rochaderechte, die erhalten bleiben, wenn ein Zug ein Feld verlässt oder betritt.
+     */
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASK, 15);
+        CASTLING_MASK[4] = ~(WHITE_KINGSIDE | WHITE_QUEENSIDE) & 15;
+        CASTLING_MASK[7] = ~WHITE_KINGSIDE & 15;
+        CASTLING_MASK[0] = ~WHITE_QUEENSIDE & 15;
+        CASTLING_MASK[60] = ~(BLACK_KINGSIDE | BLACK_QUEENSIDE) & 15;
+        CASTLING_MASK[63] = ~BLACK_KINGSIDE & 15;
+        CASTLING_MASK[56] = ~BLACK_QUEENSIDE & 15;
+    }
+
+    /**
+     * Initialisiert das Schachbrett mit den Startpositionen der Figuren.
+     */
+    public Board() {
+        allocateStacks(INITIAL_PLY);
+
+        // Schwarze Bauern
+        for (int x = 0; x < 8; x++) {
+            board[6][x] = new Pawn("black");
+        }
+
+        // Weiße Bauern
+        for (int x = 0; x < 8; x++) {
+            board[1][x] = new Pawn("white");
+        }
+
+        // Türme
+        board[7][0] = new Rook("black");
+        board[7][7] = new Rook("black");
+        board[0][0] = new Rook("white");
+        board[0][7] = new Rook("white");
+
+        // Pferde/Springer
+        board[7][1] = new Knight("black");
+        board[7][6] = new Knight("black");
+        board[0][1] = new Knight("white");
+        board[0][6] = new Knight("white");
+
+        // Läufer
+        board[7][2] = new Bishop("black");
+        board[7][5] = new Bishop("black");
+        board[0][2] = new Bishop("white");
+        board[0][5] = new Bishop("white");
+
+        // Damen
+        board[7][3] = new Queen("black");
+        board[0][3] = new Queen("white");
+
+        // Könige
+        board[7][4] = new King("black");
+        board[0][4] = new King("white");
+
+        syncFromView();
+    }
+
+    /**
+     * Erzeugt eine unabhängige Kopie der Stellung inklusive Zugstapel, z.B. für Such- oder Perft-Threads.
+     * Die Figurenobjekte der Ansicht werden nicht kopiert; die Kopie baut ihre eigene Ansicht erst beim ersten
+     * Zugriff (z.B. {@link #getPiece}) aus den Bitboards auf.
+     *
+     * @param other Die zu kopierende Stellung.
+     */
+    public Board(Board other) {
+        for (int color = WHITE; color <= BLACK; color++) {
+            System.arraycopy(other.pieces[color], 0, pieces[color], 0, 6);
+        }
+        System.arraycopy(other.occupancy, 0, occupancy, 0, 2);
+        System.arraycopy(other.mailbox, 0, mailbox, 0, 64);
+        occupied = other.occupied;
+        sideToMove = other.sideToMove;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        hash = other.hash;
+        midgameScore = other.midgameScore;
+        endgameScore = other.endgameScore;
+        phase = other.phase;
+        pawnHash = other.pawnHash;
+        ply = other.ply;
+        allocateStacks(other.moveStack.length);
+        System.arraycopy(other.moveStack, 0, moveStack, 0, ply);
+        System.arraycopy(other.stateStack, 0, stateStack, 0, ply);
+        System.arraycopy(other.hashStack, 0, hashStack, 0, ply);
+        viewStale = true;
+    }
+
+    /**
+     * Initialisiert das Schachbrett mit einer Stellung in Forsyth-Edwards-Notation (FEN).
+     *
+     * @param fen Die Stellung, z.B. "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1".
+     * @throws IllegalArgumentException Wenn die FEN ungültig ist.
+     */
+    public Board(String fen) {
+        allocateStacks(INITIAL_PLY);
+        setFen(fen);
+    }
+
+    /**
+     * Erzeugt ein Brett mit einer Stellung in Forsyth-Edwards-Notation (FEN).
+     *
+     * @param fen Die Stellung, siehe {@link #setFen(CharSequence)}.
+     * @return Das neue Brett.
+     * @throws IllegalArgumentException Wenn die FEN ungültig ist.
+     */
+    public static Board fromFen(CharSequence fen) {
+        Board board = new Board(INITIAL_PLY);
+        board.setFen(fen);
+        return board;
+    }
+
+    /**
+     * Konstruktor für ein leeres Brett, das anschließend mit {@link #setFen(CharSequence)} gefüllt wird.
+     */
+    private Board(int stackSize) {
+        allocateStacks(stackSize);
+    }
+
+    /**
+     * Setzt das Brett auf eine Stellung in Forsyth-Edwards-Notation (FEN) zurück, z.B. um in einer Analyse
+     * viele Stellungen nacheinander mit demselben Brett zu laden.
+     * <p>
+     * Die FEN wird Zeichen für Zeichen gelesen, ohne Strings, reguläre Ausdrücke oder andere Objekte anzulegen;
+     * Zugstapel und Puffer des Bretts werden weiterverwendet, die Zughistorie ist danach leer. Die Figurenobjekte
+     * der Ansicht werden erst bei Bedarf (z.B. {@link #getPiece}) neu angelegt. Fehlen Zugrecht, Rochaderechte,
+     * En-passant-Feld oder Zugzähler am Ende, gelten "w - - 0 1". Rochaderechte, zu denen König oder Turm nicht
+     * auf dem Ausgangsfeld stehen, werden verworfen.
+     *
+     * @param fen Die Stellung, z.B. "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1".
+     * @throws IllegalArgumentException Wenn die FEN ungültig ist; der Inhalt des Bretts ist dann undefiniert.
+     */
+    public void setFen(CharSequence fen) {
+        for (int color = WHITE; color <= BLACK; color++) {
+            for (int type = PAWN; type <= KING; type++) {
+                pieces[color][type] = 0L;
+            }
+            occupancy[color] = 0L;
+        }
+        occupied = 0L;
+        Arrays.fill(mailbox, NONE);
+        midgameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+        hash = 0L;
+        pawnHash = 0L;
+        sideToMove = WHITE;
+        castlingRights = 0;
+        enPassantSquare = -1;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        ply = 0;
+        viewStale = true;
+
+        int length = fen.length();
+        int i = skipSpaces(fen, 0);
+
+        // Figurenstellung von der achten Reihe abwärts
+        int row = 7;
+        int col = 0;
+        boolean digit = false;
+        for (; i < length && !Character.isWhitespace(fen.charAt(i)); i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (col != 8 || row == 0) {
+                    throw invalidFen(fen);
+                }
+                row--;
+                col = 0;
+                digit = false;
+            } else if (c >= '1' && c <= '8') {
+                if (digit) {
+                    throw invalidFen(fen); // Leere Felder werden zusammengefasst, z.B. "8" statt "44"
+                }
+                col += c - '0';
+                digit = true;
+            } else {
+                digit = false;
+                int type = pieceType(c);
+                if (type == NONE || col > 7) {
+                    throw invalidFen(fen);
+                }
+                putPiece(square(row, col), c < 'a' ? WHITE : BLACK, type);
+                col++;
+            }
+            if (col > 8) {
+                throw invalidFen(fen);
+            }
+        }
+        if (row != 0 || col != 8) {
+            throw invalidFen(fen);
+        }
+
+        // Zugrecht
+        i = skipSpaces(fen, i);
+        if (i < length) {
+            char c = fen.charAt(i++);
+            if (c == 'b') {
+                sideToMove = BLACK;
+            } else if (c != 'w') {
+                throw invalidFen(fen);
+            }
+        }
+
+        // Rochaderechte
+        i = skipSpaces(fen, i);
+        if (i < length && fen.charAt(i) == '-') {
+            i++;
+        } else {
+            for (; i < length && !Character.isWhitespace(fen.charAt(i)); i++) {
+                switch (fen.charAt(i)) {
+                    case 'K':
+                        castlingRights |= WHITE_KINGSIDE;
+                        break;
+                    case 'Q':
+                        castlingRights |= WHITE_QUEENSIDE;
+                        break;
+                    case 'k':
+                        castlingRights |= BLACK_KINGSIDE;
+                        break;
+                    case 'q':
+                        castlingRights |= BLACK_QUEENSIDE;
+                        break;
+                    default:
+                        throw invalidFen(fen);
+                }
+            }
+        }
+
+        // En-passant-Feld
+        i = skipSpaces(fen, i);
+        if (i < length && fen.charAt(i) == '-') {
+            i++;
+        } else if (i < length) {
+            if (i + 1 >= length) {
+                throw invalidFen(fen);
+            }
+            int file = fen.charAt(i) - 'a';
+            int rank = fen.charAt(i + 1) - '1';
+            if (file < 0 || file > 7 || rank != (sideToMove == WHITE ? 5 : 2)) {
+                throw invalidFen(fen);
+            }
+            enPassantSquare = square(rank, file);
+            i += 2;
+        }
+
+        // Halbzugzähler und Zugnummer
+        i = skipSpaces(fen, i);
+        if (i < length) {
+            halfmoveClock = parseCounter(fen, i);
+            i = skipSpaces(fen, skipDigits(fen, i));
+            if (i < length) {
+                fullmoveNumber = parseCounter(fen, i);
+                i = skipDigits(fen, i);
+            }
+        }
+        if (skipSpaces(fen, i) != length) {
+            throw invalidFen(fen);
+        }
+
+        if (Long.bitCount(pieces[WHITE][KING]) != 1 || Long.bitCount(pieces[BLACK][KING]) != 1
+                || ((pieces[WHITE][PAWN] | pieces[BLACK][PAWN]) & 0xFF000000000000FFL) != 0) {
+            throw invalidFen(fen);
+        }
+        // Rochaderechte nur behalten, wenn König und Turm auf ihren Ausgangsfeldern stehen
+        castlingRights &= castlingRightsFor(WHITE) | castlingRightsFor(BLACK);
+        hash = computeHash();
+    }
+
+    /**
+     * Gibt die Rochaderechte zurück, die nach der Stellung von König und Türmen einer Farbe möglich sind.
+     */
+    private int castlingRightsFor(int color) {
+        int base = color == WHITE ? 0 : 56;
+        if ((pieces[color][KING] & 1L << (base + 4)) == 0) {
+            return 0;
+        }
+        int rights = 0;
+        if ((pieces[color][ROOK] & 1L << (base + 7)) != 0) {
+            rights |= color == WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+        }
+        if ((pieces[color][ROOK] & 1L << base) != 0) {
+            rights |= color == WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+        }
+        return rights;
+    }
+
+    /**
+     * Gibt den Figurentyp zu einem Buchstaben der FEN zurück ("PNBRQK" für Weiß, "pnbrqk" für Schwarz).
+     */
+    private static int pieceType(char c) {
+        switch (c | 0x20) {
+            case 'p':
+                return PAWN;
+            case 'n':
+                return KNIGHT;
+            case 'b':
+                return BISHOP;
+            case 'r':
+                return ROOK;
+            case 'q':
+                return QUEEN;
+            case 'k':
+                return KING;
+            default:
+                return NONE;
+        }
+    }
+
+    private static int skipSpaces(CharSequence text, int i) {
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipDigits(CharSequence text, int i) {
+        while (i < text.length() && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Liest einen Zugzähler der FEN ab der angegebenen Position.
+     */
+    private static int parseCounter(CharSequence fen, int i) {
+        int end = skipDigits(fen, i);
+        if (end == i || end - i > 6) {
+            throw invalidFen(fen);
+        }
+        int value = 0;
+        for (; i < end; i++) {
+            value = 10 * value + fen.charAt(i) - '0';
+        }
+        return value;
+    }
+
+    private static IllegalArgumentException invalidFen(CharSequence fen) {
+        return new IllegalArgumentException("Ungültige FEN: " + fen);
+    }
+
+    /**
+     * Gibt die Figur an der angegebenen Position zurück.
+     *
+     * @param row Die Zeile der Figur.
+     * @param col Die Spalte der Figur.
+     * @return Die Figur an der angegebenen Position.
+     */
+    public Piece getPiece(int row, int col) {
+        ensureView();
+        return board[row][col];
+    }
+
+    /**
+     * Setzt die Figur an der angegebenen Position.
+     * Rochaderechte, zu denen König oder Turm danach nicht mehr auf dem Ausgangsfeld stehen, entfallen.
+     *
+     * @param row Die Zeile der Figur.
+     * @param col Die Spalte der Figur.
+     * @param piece Die Figur, die gesetzt werden soll.
+     */
+    public void setPiece(int row, int col, Piece piece) {
+        ensureView();
+        board[row][col] = piece;
+        int square = square(row, col);
+        removePiece(square);
+        if (piece != null) {
+            putPiece(square, colorIndex(piece.getColor()), typeOf(piece));
+        }
+        int rights = castlingRights & (castlingRightsFor(WHITE) | castlingRightsFor(BLACK));
+        hash ^= Zobrist.CASTLING[castlingRights] ^ Zobrist.CASTLING[rights];
+        castlingRights = rights;
+    }
+
+    /**
+     * Bewegt eine Figur von einer Position zu einer anderen.
+     * Erreicht ein Bauer die letzte Reihe, wird er in eine Dame umgewandelt.
+     *
+     * @param fromCol Die Spalte der Ausgangsposition.
+     * @param fromRow Die Zeile der Ausgangsposition.
+     * @param toCol Die Spalte der Zielposition.
+     * @param toRow Die Zeile der Zielposition.
+     * @param currentTurn Die Farbe des aktuellen Spielers.
+     * @throws InvalidMoveException Wenn der Zug ungültig ist.
+     */
+    public void movePiece(int fromCol, int fromRow, int toCol, int toRow, String currentTurn) throws InvalidMoveException {
+        movePiece(fromCol, fromRow, toCol, toRow, currentTurn, QUEEN);
+    }
+
+    /**
+     * Bewegt eine Figur von einer Position zu einer anderen.
+     *
+     * @param fromCol Die Spalte der Ausgangsposition.
+     * @param fromRow Die Zeile der Ausgangsposition.
+     * @param toCol Die Spalte der Zielposition.
+     * @param toRow Die Zeile der Zielposition.
+     * @param currentTurn Die Farbe des aktuellen Spielers.
+     * @param promotion Der Figurentyp, in den ein Bauer auf der letzten Reihe umgewandelt wird.
+     * @throws InvalidMoveException Wenn der Zug ungültig ist.
+     */
+    public void movePiece(int fromCol, int fromRow, int toCol, int toRow, String currentTurn, int promotion) throws InvalidMoveException {
+        // Check nach korrekter Eingabe
+        if (fromRow < 0 || fromRow > 7 || fromCol < 0 || fromCol > 7 || toRow < 0 || toRow > 7 || toCol < 0 || toCol > 7) {
+            throw new InvalidMoveException("Ungültige Zugkoordinaten...");
+        }
+        Piece piece = getPiece(fromRow, fromCol);
+        // Check ob sich auf dem gewählen Feld eine Figur befindet
+        if (piece == null) {
+            throw new InvalidMoveException("Nur existierende Figuren können bewegt werden...");
+        }
+        if (!piece.getColor().equals(currentTurn) || colorIndex(currentTurn) != sideToMove) {
+            throw new InvalidMoveException("Du bist nicht dran...");
+        }
+
+        // Checkt ob der Zug erlaubt ist, ohne das Brett zu verändern
+        int move = findMove(square(fromRow, fromCol), square(toRow, toCol), promotion);
+        if (move == Move.NONE) {
+            throw new InvalidMoveException("Die Figur kann den Zug nicht ausführen.");
+        }
+        playMove(move);
+    }
+
+    /**
+     * Sucht den legalen Zug zu einem Zug in Koordinatenschreibweise (z.B. "e2e4" oder "e7e8q").
+     * Fehlt bei einer Umwandlung die Figur, wird in eine Dame umgewandelt. Ein fünftes Zeichen muss "n", "b",
+     * "r" oder "q" sein und ist nur bei einer Umwandlung erlaubt.
+     *
+     * @param text Der Zug als Text.
+     * @return Der Zug oder {@link Move#NONE}, wenn er ungültig oder in dieser Stellung nicht legal ist.
+     */
+    public int findMove(String text) {
+        if (text.length() < 4 || text.length() > 5) {
+            return Move.NONE;
+        }
+        int fromCol = text.charAt(0) - 'a';
+        int fromRow = text.charAt(1) - '1';
+        int toCol = text.charAt(2) - 'a';
+        int toRow = text.charAt(3) - '1';
+        if (fromRow < 0 || fromRow > 7 || fromCol < 0 || fromCol > 7 || toRow < 0 || toRow > 7 || toCol < 0 || toCol > 7) {
+            return Move.NONE;
+        }
+        if (text.length() == 4) {
+            return findMove(square(fromRow, fromCol), square(toRow, toCol), QUEEN);
+        }
+        int promotion = "nbrq".indexOf(Character.toLowerCase(text.charAt(4)));
+        if (promotion < 0) {
+            return Move.NONE;
+        }
+        int move = findMove(square(fromRow, fromCol), square(toRow, toCol), KNIGHT + promotion);
+        // Eine Umwandlungsfigur ist nur bei einer Umwandlung erlaubt
+        return Move.isPromotion(move) ? move : Move.NONE;
+    }
+
+    /**
+     * Sucht unter den legalen Zügen den Zug von einem Feld auf ein anderes.
+     *
+     * @return Der Zug oder {@link Move#NONE}.
+     */
+    private int findMove(int from, int to, int promotion) {
+        int count = MoveGenerator.generateMoves(this, moveBuffer);
+        for (int i = 0; i < count; i++) {
+            int move = moveBuffer[i];
+            if (Move.from(move) == from && Move.to(move) == to
+                    && (!Move.isPromotion(move) || Move.promotion(move) == promotion)) {
+                return move;
+            }
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * Führt einen legalen Zug im laufenden Spiel aus und aktualisiert dabei auch die Figurenobjekte.
+     *
+     * @param move Der Zug (siehe {@link Move}).
+     */
+    public void playMove(int move) {
+        ensureView();
+        int from = Move.from(move);
+        int to = Move.to(move);
+        Piece piece = board[from / 8][from % 8];
+        board[from / 8][from % 8] = null;
+        if ((Move.flags(move) & Move.EN_PASSANT) != 0) {
+            board[from / 8][to % 8] = null;
+        }
+        if (Move.isPromotion(move)) {
+            piece = newPiece(Move.promotion(move), piece.getColor());
+        }
+        board[to / 8][to % 8] = piece;
+        piece.hasMoved++;
+        if ((Move.flags(move) & Move.CASTLING) != 0) {
+            int rookFrom = to > from ? to + 1 : to - 2;
+            int rookTo = to > from ? to - 1 : to + 1;
+            Piece rook = board[rookFrom / 8][rookFrom % 8];
+            board[rookFrom / 8][rookFrom % 8] = null;
+            board[rookTo / 8][rookTo % 8] = rook;
+            rook.hasMoved++;
+        }
+        makeMove(move);
+    }
+
+    /**
+     * Führt einen Zug auf den Bitboards aus und legt den nicht umkehrbaren Zustand auf den Zugstapel.
+     * Die Figurenobjekte der Ansicht werden dabei nicht verändert, siehe {@link #playMove(int)}.
+     *
+     * @param move Der Zug (siehe {@link Move}), muss in dieser Stellung legal sein.
+     */
+    public void makeMove(int move) {
+        if (ply == moveStack.length) {
+            growStacks();
+        }
+        moveStack[ply] = move;
+        stateStack[ply] = castlingRights | (enPassantSquare + 1) << 4 | halfmoveClock << 11;
+        hashStack[ply] = hash;
+        ply++;
+
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int piece = Move.piece(move);
+        int captured = Move.captured(move);
+        int flags = Move.flags(move);
+        int us = sideToMove;
+        int them = 1 - us;
+
+        if (captured != NONE) {
+            int capturedSquare = (flags & Move.EN_PASSANT) != 0 ? to + (us == WHITE ? -8 : 8) : to;
+            removePiece(capturedSquare, them, captured);
+        }
+        removePiece(from, us, piece);
+        putPiece(to, us, Move.isPromotion(move) ? Move.promotion(move) : piece);
+        if ((flags & Move.CASTLING) != 0) {
+            // Der Turm springt über den König
+            if (to > from) {
+                removePiece(to + 1, us, ROOK);
+                putPiece(to - 1, us, ROOK);
+            } else {
+                removePiece(to - 2, us, ROOK);
+                putPiece(to + 1, us, ROOK);
+            }
+        }
+
+        // Die Figurenschlüssel sind schon in putPiece/removePiece eingerechnet
+        hash ^= Zobrist.CASTLING[castlingRights];
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        hash ^= Zobrist.CASTLING[castlingRights];
+        if (enPassantSquare >= 0) {
+            hash ^= Zobrist.EN_PASSANT[enPassantSquare % 8];
+        }
+        enPassantSquare = (flags & Move.DOUBLE_PUSH) != 0 ? (from + to) / 2 : -1;
+        if (enPassantSquare >= 0) {
+            hash ^= Zobrist.EN_PASSANT[enPassantSquare % 8];
+        }
+        hash ^= Zobrist.SIDE;
+        halfmoveClock = piece == PAWN || captured != NONE ? 0 : halfmoveClock + 1;
+        if (us == BLACK) {
+            fullmoveNumber++;
+        }
+        sideToMove = them;
+        if (VERIFY_HASH) {
+            verifyHash();
+        }
+    }
+
+    /**
+     * Nimmt den zuletzt mit {@link #makeMove(int)} ausgeführten Zug zurück.
+     */
+    public void unmakeMove() {
+        ply--;
+        int move = moveStack[ply];
+        int state = stateStack[ply];
+
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int piece = Move.piece(move);
+        int captured = Move.captured(move);
+        int flags = Move.flags(move);
+        int us = 1 - sideToMove;
+
+        if ((flags & Move.CASTLING) != 0) {
+            if (to > from) {
+                removePiece(to - 1, us, ROOK);
+                putPiece(to + 1, us, ROOK);
+            } else {
+                removePiece(to + 1, us, ROOK);
+                putPiece(to - 2, us, ROOK);
+            }
+        }
+        removePiece(to, us, Move.isPromotion(move) ? Move.promotion(move) : piece);
+        putPiece(from, us, piece);
+        if (captured != NONE) {
+            int capturedSquare = (flags & Move.EN_PASSANT) != 0 ? to + (us == WHITE ? -8 : 8) : to;
+            putPiece(capturedSquare, 1 - us, captured);
+        }
+
+        castlingRights = state & 15;
+        enPassantSquare = ((state >>> 4) & 127) - 1;
+        halfmoveClock = state >>> 11;
+        hash = hashStack[ply];
+        if (us == BLACK) {
+            fullmoveNumber--;
+        }
+        sideToMove = us;
+        if (VERIFY_HASH) {
+            verifyHash();
+        }
+    }
+
+    /**
+     * Übergibt das Zugrecht, ohne zu ziehen (Nullzug), für die Nullzug-Suche. Das en-passant-Recht verfällt,
+     * der Halbzugzähler beginnt neu, damit keine Wiederholung über den Nullzug hinweg erkannt wird.
+     * Zurücknehmen nur mit {@link #unmakeNullMove()}.
+     */
+    public void makeNullMove() {
+        if (ply == moveStack.length) {
+            growStacks();
+        }
+        moveStack[ply] = Move.NONE;
+        stateStack[ply] = castlingRights | (enPassantSquare + 1) << 4 | halfmoveClock << 11;
+        hashStack[ply] = hash;
+        ply++;
+        if (enPassantSquare >= 0) {
+            hash ^= Zobrist.EN_PASSANT[enPassantSquare % 8];
+            enPassantSquare = -1;
+        }
+        hash ^= Zobrist.SIDE;
+        halfmoveClock = 0;
+        sideToMove = 1 - sideToMove;
+    }
+
+    /**
+     * Nimmt einen Nullzug zurück.
+     */
+    public void unmakeNullMove() {
+        ply--;
+        int state = stateStack[ply];
+        enPassantSquare = ((state >>> 4) & 127) - 1;
+        halfmoveClock = state >>> 11;
+        hash = hashStack[ply];
+        sideToMove = 1 - sideToMove;
+    }
+
+    /**
+     * Gibt den zuletzt ausgeführten Zug zurück.
+     *
+     * @return Der letzte Zug oder {@link Move#NONE}, wenn noch kein Zug ausgeführt wurde oder der letzte ein Nullzug war.
+     */
+    public int getLastMove() {
+        return ply == 0 ? Move.NONE : moveStack[ply - 1];
+    }
+
+    /**
+     * Gibt alle Figuren der angegebenen Farbe zurück, die ein Feld angreifen.
+     *
+     * @param square Das Feld.
+     * @param color  Die Farbe der Angreifer.
+     * @return Die Felder der Angreifer als Bitboard.
+     */
+    public long attackersTo(int square, int color) {
+        return attackersTo(square, color, occupied);
+    }
+
+    /**
+     * Gibt alle Figuren der angegebenen Farbe zurück, die ein Feld bei einer abweichenden Belegung angreifen.
+     * Damit lassen sich z.B. Felder hinter dem ziehenden König oder Röntgenangriffe prüfen.
+     *
+     * @param square   Das Feld.
+     * @param color    Die Farbe der Angreifer.
+     * @param occupied Die Belegung, mit der die Strahlen berechnet werden.
+     * @return Die Felder der Angreifer als Bitboard.
+     */
+    public long attackersTo(int square, int color, long occupied) {
+        long[] them = pieces[color];
+        return (Attacks.pawn(1 - color, square) & them[PAWN])
+             | (Attacks.knight(square) & them[KNIGHT])
+             | (Attacks.king(square) & them[KING])
+             | (Attacks.bishop(square, occupied) & (them[BISHOP] | them[QUEEN]))
+             | (Attacks.rook(square, occupied) & (them[ROOK] | them[QUEEN]));
+    }
+
+    /**
+     * Bewertet den Abtausch, den ein Zug auf seinem Zielfeld auslöst (Static Exchange Evaluation): beide Seiten
+     * schlagen abwechselnd mit ihrer billigsten Figur zurück und dürfen jederzeit aufhören. Figuren, die erst
+     * durch das Wegschlagen anderer frei werden (Röntgenangriffe), werden mitgezählt; Fesselungen nicht.
+     * <p>
+     * Die Stellung wird nicht verändert, es wird nichts allokiert.
+     *
+     * @param move Ein Zug der Seite am Zug in dieser Stellung, z.B. vom {@link MoveGenerator}.
+     * @return Der Materialgewinn für die ziehende Seite in Centipawns, negativ bei einem Verlust.
+     */
+    public int see(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int[] gain = seeGain;
+        long occupied = this.occupied ^ 1L << from;
+
+        int captured = Move.captured(move);
+        gain[0] = captured == NONE ? 0 : SEE_VALUES[captured];
+        if ((Move.flags(move) & Move.EN_PASSANT) != 0) {
+            occupied ^= 1L << (to + (sideToMove == WHITE ? -8 : 8));
+        }
+        // Der Wert der Figur, die jetzt auf dem Zielfeld steht und als nächste geschlagen werden kann
+        int onSquare = Move.piece(move);
+        if (Move.isPromotion(move)) {
+            onSquare = Move.promotion(move);
+            gain[0] += SEE_VALUES[onSquare] - SEE_VALUES[PAWN];
+        }
+
+        long diagonal = pieces[WHITE][BISHOP] | pieces[BLACK][BISHOP] | pieces[WHITE][QUEEN] | pieces[BLACK][QUEEN];
+        long straight = pieces[WHITE][ROOK] | pieces[BLACK][ROOK] | pieces[WHITE][QUEEN] | pieces[BLACK][QUEEN];
+        long attackers = (attackersTo(to, WHITE, occupied) | attackersTo(to, BLACK, occupied)) & occupied;
+        int side = 1 - sideToMove;
+        int depth = 0;
+        while (true) {
+            long mine = attackers & occupancy[side];
+            if (mine == 0) {
+                break;
+            }
+            int type = PAWN;
+            while ((mine & pieces[side][type]) == 0) {
+                type++;
+            }
+            depth++;
+            gain[depth] = SEE_VALUES[onSquare] - gain[depth - 1];
+            occupied ^= Long.lowestOneBit(mine & pieces[side][type]);
+            // Durch den geschlagenen Stein frei gewordene Läufer-, Turm- und Damenstrahlen
+            attackers |= Attacks.bishop(to, occupied) & diagonal | Attacks.rook(to, occupied) & straight;
+            attackers &= occupied;
+            onSquare = type;
+            side = 1 - side;
+        }
+        // Von hinten auflösen: jede Seite schlägt nur, wenn es sich für sie lohnt
+        for (; depth > 0; depth--) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+        }
+        return gain[0];
+    }
+
+    /**
+     * Gibt das Bitboard der Figuren einer Farbe und eines Typs zurück.
+     *
+     * @param color Die Farbe ({@link #WHITE} oder {@link #BLACK}).
+     * @param type  Der Figurentyp ({@link #PAWN} bis {@link #KING}).
+     * @return Das Bitboard.
+     */
+    public long getBitboard(int color, int type) {
+        return pieces[color][type];
+    }
+
+    /**
+     * Gibt alle Felder zurück, die von Figuren der angegebenen Farbe besetzt sind.
+     *
+     * @param color Die Farbe.
+     * @return Das Bitboard der besetzten Felder.
+     */
+    public long getOccupancy(int color) {
+        return occupancy[color];
+    }
+
+    /**
+     * Gibt alle besetzten Felder zurück.
+     *
+     * @return Das Bitboard der besetzten Felder.
+     */
+    public long getOccupied() {
+        return occupied;
+    }
+
+    /**
+     * Gibt den Figurentyp auf einem Feld zurück.
+     *
+     * @param square Das Feld.
+     * @return Der Figurentyp oder {@link #NONE}, wenn das Feld leer ist.
+     */
+    public int getPieceType(int square) {
+        return mailbox[square];
+    }
+
+    /**
+     * Gibt Material und Figur-Feld-Werte für das Mittelspiel aus Sicht von Weiß zurück.
+     *
+     * @return Der Wert in Centipawns.
+     */
+    public int getMidgameScore() {
+        return midgameScore;
+    }
+
+    /**
+     * Gibt Material und Figur-Feld-Werte für das Endspiel aus Sicht von Weiß zurück.
+     *
+     * @return Der Wert in Centipawns.
+     */
+    public int getEndgameScore() {
+        return endgameScore;
+    }
+
+    /**
+     * Gibt die Spielphase zurück: {@link Evaluator#MAX_PHASE} mit allen Figuren, 0 mit nur noch Königen und Bauern.
+     * Nach Umwandlungen kann sie größer als das Maximum sein.
+     *
+     * @return Die Phase.
+     */
+    public int getPhase() {
+        return phase;
+    }
 
     /**
-     * Initialisiert das Schachbrett mit den Startpositionen der Figuren.
+     * Gibt die Farbe zurück, die am Zug ist.
+     *
+     * @return {@link #WHITE} oder {@link #BLACK}.
      */
-    public Board() {
-        // Schwarze Bauern
-        for (int x = 0; x < 8; x++) {
-            board[6][x] = new Pawn("black");
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    /**
+     * Gibt die noch erlaubten Rochaden zurück.
+     *
+     * @return Bitmaske aus {@link #WHITE_KINGSIDE}, {@link #WHITE_QUEENSIDE}, {@link #BLACK_KINGSIDE} und {@link #BLACK_QUEENSIDE}.
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * Gibt das en-passant-Feld zurück.
+     *
+     * @return Das Feld, auf das en passant geschlagen werden kann, oder -1.
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    /**
+     * Gibt die Anzahl der Halbzüge seit dem letzten Bauernzug oder Schlagen zurück.
+     *
+     * @return Der Halbzugzähler.
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Gibt die Nummer des aktuellen Zuges zurück.
+     *
+     * @return Die Zugnummer.
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Gibt die Anzahl der ausgeführten Halbzüge zurück. Der Zugstapel ist zugleich die Zughistorie der Partie:
+     * jeder angenommene Zug aus {@link #movePiece} bzw. {@link #playMove(int)} liegt dort als {@code int}.
+     *
+     * @return Die Anzahl der Halbzüge seit der Ausgangsstellung.
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * Gibt einen Zug der Historie zurück.
+     *
+     * @param index Der Index ab 0 (der erste Zug ab der Ausgangsstellung), kleiner als {@link #getPly()}.
+     * @return Der Zug (siehe {@link Move}).
+     */
+    public int getHistoryMove(int index) {
+        if (index < 0 || index >= ply) {
+            throw new IndexOutOfBoundsException("Zug " + index + " von " + ply);
         }
+        return moveStack[index];
+    }
 
-        // Weiße Bauern
-        for (int x = 0; x < 8; x++) {
-            board[1][x] = new Pawn("white");
+    /**
+     * Hängt die Stellung in Forsyth-Edwards-Notation (FEN) an, ohne weitere Objekte anzulegen.
+     *
+     * @param out Das Ziel.
+     * @return Das Ziel.
+     */
+    public StringBuilder appendFen(StringBuilder out) {
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                int square = square(row, col);
+                int type = mailbox[square];
+                if (type == NONE) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                char c = "pnbrqk".charAt(type);
+                out.append((occupancy[WHITE] & 1L << square) != 0 ? Character.toUpperCase(c) : c);
+            }
+            if (empty > 0) {
+                out.append((char) ('0' + empty));
+            }
+            if (row > 0) {
+                out.append('/');
+            }
+        }
+        out.append(sideToMove == WHITE ? " w " : " b ");
+        if (castlingRights == 0) {
+            out.append('-');
+        } else {
+            if ((castlingRights & WHITE_KINGSIDE) != 0) {
+                out.append('K');
+            }
+            if ((castlingRights & WHITE_QUEENSIDE) != 0) {
+                out.append('Q');
+            }
+            if ((castlingRights & BLACK_KINGSIDE) != 0) {
+                out.append('k');
+            }
+            if ((castlingRights & BLACK_QUEENSIDE) != 0) {
+                out.append('q');
+            }
+        }
+        out.append(' ');
+        if (enPassantSquare >= 0) {
+            out.append((char) ('a' + enPassantSquare % 8)).append((char) ('1' + enPassantSquare / 8));
+        } else {
+            out.append('-');
         }
+        return out.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+    }
 
-        // Türme
-        board[7][0] = new Rook("black");
-        board[7][7] = new Rook("black");
-        board[0][0] = new Rook("white");
-        board[0][7] = new Rook("white");
+    /**
+     * Gibt die Stellung in Forsyth-Edwards-Notation (FEN) zurück.
+     *
+     * @return Die FEN, z.B. "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1".
+     */
+    public String toFen() {
+        return appendFen(new StringBuilder(90)).toString();
+    }
 
-        // Pferde/Springer
-        board[7][1] = new Knight("black");
-        board[7][6] = new Knight("black");
-        board[0][1] = new Knight("white");
-        board[0][6] = new Knight("white");
+    /**
+     * Setzt eine Figur in die Bitboards.
+     */
+    private void putPiece(int square, int color, int type) {
+        long bit = 1L << square;
+        pieces[color][type] |= bit;
+        occupancy[color] |= bit;
+        occupied |= bit;
+        mailbox[square] = type;
+        hash ^= Zobrist.PIECES[color][type][square];
+        if (type == PAWN) {
+            pawnHash ^= Zobrist.PIECES[color][PAWN][square];
+        }
+        midgameScore += Evaluator.MIDGAME[color][type][square];
+        endgameScore += Evaluator.ENDGAME[color][type][square];
+        phase += Evaluator.PHASE[type];
+    }
 
-        // Läufer
-        board[7][2] = new Bishop("black");
-        board[7][5] = new Bishop("black");
-        board[0][2] = new Bishop("white");
-        board[0][5] = new Bishop("white");
+    /**
+     * Entfernt eine Figur mit bekannter Farbe und bekanntem Typ aus den Bitboards.
+     */
+    private void removePiece(int square, int color, int type) {
+        long bit = 1L << square;
+        pieces[color][type] ^= bit;
+        occupancy[color] ^= bit;
+        occupied ^= bit;
+        mailbox[square] = NONE;
+        hash ^= Zobrist.PIECES[color][type][square];
+        if (type == PAWN) {
+            pawnHash ^= Zobrist.PIECES[color][PAWN][square];
+        }
+        midgameScore -= Evaluator.MIDGAME[color][type][square];
+        endgameScore -= Evaluator.ENDGAME[color][type][square];
+        phase -= Evaluator.PHASE[type];
+    }
 
-        // Damen
-        board[7][3] = new Queen("black");
-        board[0][3] = new Queen("white");
+    /**
+     * Entfernt die Figur auf einem Feld aus den Bitboards, falls dort eine steht.
+     */
+    private void removePiece(int square) {
+        int type = mailbox[square];
+        if (type == NONE) {
+            return;
+        }
+        long bit = 1L << square;
+        removePiece(square, (occupancy[WHITE] & bit) != 0 ? WHITE : BLACK, type);
+    }
 
-        // Könige
-        board[7][4] = new King("black");
-        board[0][4] = new King("white");
+    /**
+     * Legt die Zugstapel mit der angegebenen Größe an.
+     */
+    private void allocateStacks(int size) {
+        moveStack = new int[size];
+        stateStack = new int[size];
+        hashStack = new long[size];
     }
 
     /**
-     * Gibt die Figur an der angegebenen Position zurück.
-     *
-     * @param row Die Zeile der Figur.
-     * @param col Die Spalte der Figur.
-     * @return Die Figur an der angegebenen Position.
+     * Verdoppelt die Zugstapel.
      */
-    public Piece getPiece(int row, int col) {
-        return board[row][col];
+    private void growStacks() {
+        int size = 2 * moveStack.length;
+        moveStack = Arrays.copyOf(moveStack, size);
+        stateStack = Arrays.copyOf(stateStack, size);
+        hashStack = Arrays.copyOf(hashStack, size);
     }
 
     /**
-     * Setzt die Figur an der angegebenen Position.
+     * Baut die Bitboards aus den Figurenobjekten neu auf.
+     * Die Rochaderechte werden aus den noch nicht bewegten Königen und Türmen abgeleitet.
+     */
+    private void syncFromView() {
+        for (int color = WHITE; color <= BLACK; color++) {
+            for (int type = PAWN; type <= KING; type++) {
+                pieces[color][type] = 0L;
+            }
+            occupancy[color] = 0L;
+        }
+        occupied = 0L;
+        midgameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+        pawnHash = 0L;
+        for (int square = 0; square < 64; square++) {
+            mailbox[square] = NONE;
+            Piece piece = board[square / 8][square % 8];
+            if (piece != null) {
+                putPiece(square, colorIndex(piece.getColor()), typeOf(piece));
+            }
+        }
+        castlingRights = 0;
+        if (isUnmoved(0, 4, King.class, "white")) {
+            if (isUnmoved(0, 7, Rook.class, "white")) {
+                castlingRights |= WHITE_KINGSIDE;
+            }
+            if (isUnmoved(0, 0, Rook.class, "white")) {
+                castlingRights |= WHITE_QUEENSIDE;
+            }
+        }
+        if (isUnmoved(7, 4, King.class, "black")) {
+            if (isUnmoved(7, 7, Rook.class, "black")) {
+                castlingRights |= BLACK_KINGSIDE;
+            }
+            if (isUnmoved(7, 0, Rook.class, "black")) {
+                castlingRights |= BLACK_QUEENSIDE;
+            }
+        }
+        hash = computeHash();
+    }
+
+    /**
+     * Baut die Figurenobjekte aus den Bitboards neu auf.
+     */
+    private void rebuildView() {
+        for (int square = 0; square < 64; square++) {
+            int type = mailbox[square];
+            Piece piece = null;
+            if (type != NONE) {
+                int color = (occupancy[WHITE] & 1L << square) != 0 ? WHITE : BLACK;
+                piece = newPiece(type, colorName(color));
+                piece.hasMoved = isStartSquare(square, color, type) ? 0 : 1;
+            }
+            board[square / 8][square % 8] = piece;
+        }
+    }
+
+    /**
+     * Baut die Ansicht nach {@link #setFen(CharSequence)} oder in einer Kopie beim ersten Zugriff auf.
+     */
+    private void ensureView() {
+        if (viewStale) {
+            viewStale = false;
+            rebuildView();
+        }
+    }
+
+    /**
+     * Überprüft, ob eine Figur noch als unbewegt gelten kann (Bauern auf der Grundreihe, Könige und Türme mit Rochaderecht).
+     */
+    private boolean isStartSquare(int square, int color, int type) {
+        int base = color == WHITE ? 0 : 56;
+        int kingSide = color == WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+        int queenSide = color == WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+        switch (type) {
+            case PAWN:
+                return square / 8 == (color == WHITE ? 1 : 6);
+            case ROOK:
+                return square == base + 7 && (castlingRights & kingSide) != 0
+                    || square == base && (castlingRights & queenSide) != 0;
+            case KING:
+                return square == base + 4 && (castlingRights & (kingSide | queenSide)) != 0;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Gibt den Zobrist-Schlüssel der Stellung zurück. Er wird bei jedem Zug nachgeführt und kostet hier nichts.
+     * Zwei Stellungen mit gleichen Figuren, Rochaderechten, en-passant-Linie und Seite am Zug haben denselben Schlüssel.
      *
-     * @param row Die Zeile der Figur.
-     * @param col Die Spalte der Figur.
-     * @param piece Die Figur, die gesetzt werden soll.
+     * @return Der Schlüssel der Stellung.
      */
-    public void setPiece(int row, int col, Piece piece) {
-        board[row][col] = piece;
+    public long hash() {
+        return hash;
     }
 
     /**
-     * Bewegt eine Figur von einer Position zu einer anderen.
+     * Berechnet den Zobrist-Schlüssel der Stellung vollständig neu, z.B. um {@link #hash()} zu prüfen.
      *
-     * @param fromCol Die Spalte der Ausgangsposition.
-     * @param fromRow Die Zeile der Ausgangsposition.
-     * @param toCol Die Spalte der Zielposition.
-     * @param toRow Die Zeile der Zielposition.
-     * @param currentTurn Die Farbe des aktuellen Spielers.
-     * @throws InvalidMoveException Wenn der Zug ungültig ist.
+     * @return Der Schlüssel der Stellung.
      */
-    public void movePiece(int fromCol, int fromRow, int toCol, int toRow, String currentTurn) throws InvalidMoveException {
-        Piece piece = getPiece(fromRow, fromCol);
-        // Check nach korrekter Eingabe
-        if (fromRow < 0 || fromRow > 7 || fromCol < 0 || fromCol > 7 || toRow < 0 || toRow > 7 || toCol < 0 || toCol > 7) {
-            throw new InvalidMoveException("Ungültige Zugkoordinaten...");
+    public long computeHash() {
+        long hash = 0L;
+        for (int color = WHITE; color <= BLACK; color++) {
+            for (int type = PAWN; type <= KING; type++) {
+                long bitboard = pieces[color][type];
+                while (bitboard != 0) {
+                    hash ^= Zobrist.PIECES[color][type][Long.numberOfTrailingZeros(bitboard)];
+                    bitboard &= bitboard - 1;
+                }
+            }
         }
-        // Check ob sich auf dem gewählen Feld eine Figur befindet
-        if (piece == null) {
-            throw new InvalidMoveException("Nur existierende Figuren können bewegt werden...");
+        hash ^= Zobrist.CASTLING[castlingRights];
+        if (enPassantSquare >= 0) {
+            hash ^= Zobrist.EN_PASSANT[enPassantSquare % 8];
         }
-        if (!piece.getColor().equals(currentTurn)) {
-            throw new InvalidMoveException("Du bist nicht dran...");
+        if (sideToMove == BLACK) {
+            hash ^= Zobrist.SIDE;
         }
+        return hash;
+    }
 
-        // Checkt ob der Zug erlaubt ist
-        try {
-            Boolean isValidMove = piece.validateMove(board, fromCol, fromRow, toCol, toRow);
-            if (!isValidMove) {
-                throw new InvalidMoveException("Die Figur kann den Zug nicht ausführen.");
-            }
+    /**
+     * Gibt den Zobrist-Schlüssel der Bauernstellung zurück (nur die Bauern beider Farben).
+     *
+     * @return Der Schlüssel der Bauernstellung.
+     */
+    public long pawnHash() {
+        return pawnHash;
+    }
 
-            // Bauern Promotion
-            if (piece.getColor().equals(currentTurn) && piece instanceof Pawn && (toRow == 0 || toRow == 7)) {
-                // Bauern promotion ist in der validateMove methode vom Bauern
-                setPiece(fromRow, fromCol, null);
-            } else if (piece instanceof King && Math.abs(toRow - fromRow) > 1){
-                // Rocharde ist in der validateMove methode vom König gehandhabt
-            } else {
-                // Bewegt die Figuren an die entsprechende Stelle
-                setPiece(fromRow, fromCol, null);
-                setPiece(toRow, toCol, piece);
+    /**
+     * Berechnet den Schlüssel der Bauernstellung vollständig neu, z.B. um {@link #pawnHash()} zu prüfen.
+     *
+     * @return Der Schlüssel der Bauernstellung.
+     */
+    public long computePawnHash() {
+        long hash = 0L;
+        for (int color = WHITE; color <= BLACK; color++) {
+            for (long bitboard = pieces[color][PAWN]; bitboard != 0; bitboard &= bitboard - 1) {
+                hash ^= Zobrist.PIECES[color][PAWN][Long.numberOfTrailingZeros(bitboard)];
             }
+        }
+        return hash;
+    }
+
+    /**
+     * Vergleicht die nachgeführten Schlüssel mit neu berechneten (Debug-Modus).
+     *
+     * @throws IllegalStateException Wenn die Schlüssel voneinander abweichen.
+     */
+    private void verifyHash() {
+        long expected = computeHash();
+        if (hash != expected) {
+            throw new IllegalStateException(String.format("Zobrist-Schlüssel weicht ab: %016x statt %016x nach %s",
+                    hash, expected, Move.toString(getLastMove())));
+        }
+        expected = computePawnHash();
+        if (pawnHash != expected) {
+            throw new IllegalStateException(String.format("Bauernschlüssel weicht ab: %016x statt %016x nach %s",
+                    pawnHash, expected, Move.toString(getLastMove())));
+        }
+    }
+
+    /**
+     * Überprüft, ob auf dem Feld eine noch nicht bewegte Figur der angegebenen Art und Farbe steht.
+     */
+    private boolean isUnmoved(int row, int col, Class<? extends Piece> kind, String color) {
+        Piece piece = board[row][col];
+        return kind.isInstance(piece) && piece.getColor().equals(color) && piece.getHasMoved() == 0;
+    }
+
+    /**
+     * Berechnet den Feld-Index aus Zeile und Spalte.
+     *
+     * @param row Die Zeile (0 ist die erste Reihe).
+     * @param col Die Spalte (0 ist die a-Linie).
+     * @return Der Feld-Index.
+     */
+    public static int square(int row, int col) {
+        return row * 8 + col;
+    }
+
+    /**
+     * Wandelt eine Farbe als Text in den Farbindex um.
+     *
+     * @param color "white" oder "black".
+     * @return {@link #WHITE} oder {@link #BLACK}.
+     */
+    public static int colorIndex(String color) {
+        return "white".equals(color) ? WHITE : BLACK;
+    }
+
+    /**
+     * Wandelt einen Farbindex in die Farbe als Text um.
+     *
+     * @param color {@link #WHITE} oder {@link #BLACK}.
+     * @return "white" oder "black".
+     */
+    public static String colorName(int color) {
+        return color == WHITE ? "white" : "black";
+    }
+
+    /**
+     * Ermittelt den Figurentyp eines Figurenobjekts.
+     *
+     * @param piece Die Figur.
+     * @return Der Figurentyp.
+     */
+    public static int typeOf(Piece piece) {
+        if (piece instanceof Pawn) {
+            return PAWN;
+        } else if (piece instanceof Knight) {
+            return KNIGHT;
+        } else if (piece instanceof Bishop) {
+            return BISHOP;
+        } else if (piece instanceof Rook) {
+            return ROOK;
+        } else if (piece instanceof Queen) {
+            return QUEEN;
+        }
+        return KING;
+    }
 
-            currentTurn = currentTurn.equals("white") ? "black" : "white";
-        } catch (NoSuchElementException e) {
-            // Fängt Exeption von Bauern Promotion
+    /**
+     * Erzeugt ein Figurenobjekt für einen Figurentyp.
+     *
+     * @param type  Der Figurentyp.
+     * @param color Die Farbe als Text ("white" oder "black").
+     * @return Die neue Figur.
+     */
+    public static Piece newPiece(int type, String color) {
+        switch (type) {
+            case PAWN:
+                return new Pawn(color);
+            case KNIGHT:
+                return new Knight(color);
+            case BISHOP:
+                return new Bishop(color);
+            case ROOK:
+                return new Rook(color);
+            case QUEEN:
+                return new Queen(color);
+            default:
+                return new King(color);
         }
     }
 
@@ -205,79 +1492,83 @@ public class Board {
      */
     // Methode um zu überprüfen, ob der König einer Farbe im Schach steht
     public boolean isInCheck(String color) {
-        // Finde die Position des Königs
-        int kingRow = -1;
-        int kingCol = -1;
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = board[row][col];
-                if (piece != null && piece instanceof King && piece.getColor().equals(color)) {
-                    kingRow = row;
-                    kingCol = col;
-                    break;
-                }
-            }
+        int us = colorIndex(color);
+        long king = pieces[us][KING];
+        if (king == 0) {
+            return false;
         }
-        // Überprüfe, ob der König von einer gegnerischen Figur angegriffen wird
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = board[row][col];
-                if (piece != null && !piece.getColor().equals(color)) {
-                    if (piece.validateMove(board, col, row, kingCol, kingRow)) {
-                        return true;
-                    }
-                }
+        return isSquareAttacked(Long.numberOfTrailingZeros(king), 1 - us);
+    }
+
+    /**
+     * Überprüft, ob der König der Seite am Zug im Schach steht.
+     *
+     * @return True, wenn die Seite am Zug im Schach steht, sonst false.
+     */
+    public boolean isInCheck() {
+        return isSquareAttacked(Long.numberOfTrailingZeros(pieces[sideToMove][KING]), 1 - sideToMove);
+    }
+
+    /**
+     * Überprüft, ob die aktuelle Stellung seit dem letzten Bauernzug oder Schlagen schon einmal
+     * mit derselben Seite am Zug vorkam. Verglichen werden nur die Zobrist-Schlüssel auf dem Zugstapel.
+     *
+     * @return True, wenn sich die Stellung wiederholt, sonst false.
+     */
+    public boolean isRepetition() {
+        int oldest = Math.max(0, ply - halfmoveClock);
+        for (int i = ply - 4; i >= oldest; i -= 2) {
+            if (hashStack[i] == hash) {
+                return true;
             }
         }
         return false;
     }
-    // Methode um zu überprüfen, ob der König einer Farbe schachmatt ist
-    public boolean isCheckmate(String color) {
-        // Überprüfe, ob der König im Schach steht
-        if (!isInCheck(color)) {
-            return false;
-        } 
-        Piece [][] cpboard = board;
 
-        // Überprüfe, ob es einen möglichen Zug gibt, um den Schach zu beenden
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = getPiece(row, col);
-                if (piece != null && piece.getColor().equals(color)) {
-                    for (int toRow = 0; toRow < 8; toRow++) {
-                        for (int toCol = 0; toCol < 8; toCol++) {
-                            piece.validateMove(cpboard, col, row, toCol, toRow);
-                            if (isInCheck(color)) {
-                                return true;
-                            }
-                        }
-                    }
-                }
-            }
+    /**
+     * Überprüft, ob ein Feld von einer Figur der angegebenen Farbe angegriffen wird.
+     *
+     * @param square Das Feld.
+     * @param color  Die Farbe der Angreifer.
+     * @return True, wenn das Feld angegriffen wird, sonst false.
+     */
+    public boolean isSquareAttacked(int square, int color) {
+        // Erst die billigen Tabellen prüfen, Strahlen nur wenn nötig
+        long[] them = pieces[color];
+        if ((Attacks.pawn(1 - color, square) & them[PAWN]) != 0
+                || (Attacks.knight(square) & them[KNIGHT]) != 0
+                || (Attacks.king(square) & them[KING]) != 0) {
+            return true;
         }
-        return false;
+        long diagonal = them[BISHOP] | them[QUEEN];
+        if (diagonal != 0 && (Attacks.bishop(square, occupied) & diagonal) != 0) {
+            return true;
+        }
+        long straight = them[ROOK] | them[QUEEN];
+        return straight != 0 && (Attacks.rook(square, occupied) & straight) != 0;
+    }
+    /**
+     * Überprüft, ob eine Farbe noch mindestens einen legalen Zug hat.
+     * Die Suche bricht beim ersten gefundenen Zug ab; im Schach werden nur Königszüge,
+     * das Schlagen des Schachgebers und das Dazwischenziehen betrachtet.
+     *
+     * @param color Die Farbe.
+     * @return True, wenn es einen legalen Zug gibt, sonst false.
+     */
+    public boolean hasAnyLegalMove(String color) {
+        return MoveGenerator.hasLegalMove(this, colorIndex(color));
+    }
+
+    // Methode um zu überprüfen, ob der König einer Farbe schachmatt ist
+    public boolean isCheckmate(String color) {
+        // Schachmatt: im Schach und kein Zug, der das Schach beendet
+        return isInCheck(color) && !hasAnyLegalMove(color);
     }
 
     // Methode um zu überprüfen, ob das Spiel in einem Patt steht
     public boolean isStalemate() {
         // Überprüfe, ob der Spieler am Zug keine Züge mehr hat
-        String currentPlayerColor = Main.getCurrentTurn() == 0 ? "white" : "black";
-        Piece [][] cpboard = board;
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = getPiece(row, col);
-                if (piece != null && piece.getColor().equals(currentPlayerColor)) {
-                    for (int toRow = 0; toRow < 8; toRow++) {
-                        for (int toCol = 0; toCol < 8; toCol++) {
-                            piece.validateMove(cpboard, col, row, toCol, toRow);
-                            if (!isInCheck(currentPlayerColor)) {
-                                return false;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        return true;
+        String currentPlayerColor = colorName(sideToMove);
+        return !isInCheck(currentPlayerColor) && !hasAnyLegalMove(currentPlayerColor);
     }
 }
\ No newline at end of file
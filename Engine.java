@@ -0,0 +1,570 @@
+import java.io.PrintStream;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Der Computergegner: sucht mit iterativer Vertiefung und Alpha-Beta (Principal Variation Search)
+ * den besten Zug einer Stellung. Die Suche läuft auf den Bitboards und dem {@link MoveGenerator},
+ * die Figurenobjekte werden dabei nicht angefasst.
+ * <p>
+ * Tiefe, Knotenzahl und Bedenkzeit können begrenzt werden; nach jeder abgeschlossenen Iteration
+ * wird ein {@link Info} an den Listener gemeldet.
+ * <p>
+ * Mit mehreren Threads wird Lazy SMP verwendet: alle Threads durchsuchen dieselbe Stellung und teilen
+ * sich nur die Transpositionstabelle; das Ergebnis liefert der Hauptthread.
+ * <p>
+ * Die selektiven Verfahren ({@link Pruning}) sind einzeln abschaltbar, um ihre Wirkung auf die Zeit bis
+ * zu einer Tiefe zu messen; ihre Zähler beschreibt {@link #describePruning()}.
+ */
+public class Engine {
+    /**
+     * Größer als jede Bewertung.
+     */
+    public static final int INFINITY = 32000;
+    /**
+     * Bewertung für Matt in 0 Halbzügen; Matt in n Halbzügen wird als {@code MATE - n} bewertet.
+     */
+    public static final int MATE = 31000;
+    /**
+     * Maximale Suchtiefe in Halbzügen.
+     */
+    public static final int MAX_PLY = 128;
+
+    /**
+     * Die gemeinsame Transpositionstabelle.
+     */
+    private final TranspositionTable table;
+    private int maxDepth = MAX_PLY - 1;
+    private long maxNodes = Long.MAX_VALUE;
+    private final TimeManager timeManager = new TimeManager();
+    private Consumer<Info> listener;
+    private int threads = 1;
+    private final Set<Pruning> pruning = EnumSet.allOf(Pruning.class);
+    /**
+     * Die Suchen der laufenden bzw. letzten Suche, eine je Thread.
+     */
+    private volatile Search[] searches = new Search[0];
+
+    /**
+     * Wird gesetzt, um die laufende Suche abzubrechen.
+     */
+    private volatile boolean stopped;
+    /**
+     * Die nächste Suche läuft als Ponder-Suche ohne Zeitgrenzen, bis {@link #ponderhit()} die Uhr startet.
+     */
+    private volatile boolean pondering;
+    /**
+     * Der Thread der mit {@link #startSearch} gestarteten Suche oder null.
+     */
+    private volatile Thread searchThread;
+    /**
+     * Das Ergebnis der letzten Suche.
+     */
+    private Info lastInfo;
+
+    /**
+     * Konstruktor für Engine.
+     *
+     * @param hashMegabytes Die Größe der Transpositionstabelle in MB.
+     */
+    public Engine(int hashMegabytes) {
+        table = new TranspositionTable(hashMegabytes);
+    }
+
+    /**
+     * Begrenzt die Suchtiefe.
+     *
+     * @param depth Die maximale Tiefe in Halbzügen.
+     */
+    public void setDepth(int depth) {
+        maxDepth = Math.max(1, Math.min(depth, MAX_PLY - 1));
+    }
+
+    /**
+     * Begrenzt die Anzahl der besuchten Knoten.
+     *
+     * @param nodes Die maximale Knotenzahl.
+     */
+    public void setNodes(long nodes) {
+        maxNodes = nodes > 0 ? nodes : Long.MAX_VALUE;
+    }
+
+    /**
+     * Begrenzt die Bedenkzeit je Zug.
+     *
+     * @param millis Die Zeit in Millisekunden, 0 für unbegrenzt.
+     */
+    public void setMoveTime(long millis) {
+        timeManager.setMoveTime(millis);
+    }
+
+    /**
+     * Teilt die Bedenkzeit nach einer Schachuhr ein (siehe {@link TimeManager}).
+     *
+     * @param remaining Die Restzeit in Millisekunden.
+     * @param increment Das Inkrement je Zug in Millisekunden.
+     * @param movesToGo Die Züge bis zur nächsten Zeitkontrolle, 0 wenn unbekannt.
+     */
+    public void setClock(long remaining, long increment, int movesToGo) {
+        timeManager.setClock(remaining, increment, movesToGo);
+    }
+
+    /**
+     * Setzt die Anzahl der Threads (Hauptthread plus Hilfsthreads).
+     *
+     * @param threads Die Anzahl, mindestens 1.
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Schaltet ein selektives Verfahren ein oder aus; gilt ab der nächsten Suche.
+     *
+     * @param technique Das Verfahren.
+     * @param enabled   True zum Einschalten.
+     */
+    public void setPruning(Pruning technique, boolean enabled) {
+        if (enabled) {
+            pruning.add(technique);
+        } else {
+            pruning.remove(technique);
+        }
+    }
+
+    /**
+     * Überprüft, ob ein selektives Verfahren eingeschaltet ist.
+     *
+     * @param technique Das Verfahren.
+     * @return True, wenn es eingeschaltet ist.
+     */
+    public boolean isEnabled(Pruning technique) {
+        return pruning.contains(technique);
+    }
+
+    /**
+     * Setzt den Empfänger der Meldungen nach jeder Iteration.
+     *
+     * @param listener Der Empfänger oder null.
+     */
+    public void setListener(Consumer<Info> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Lässt die nächste Suche ohne Zeitgrenzen laufen, während der Gegner am Zug ist (Pondern).
+     * Die Grenzen aus Schachuhr bzw. fester Zeit gelten erst ab {@link #ponderhit()}.
+     *
+     * @param ponder True für eine Ponder-Suche.
+     */
+    public void setPonder(boolean ponder) {
+        pondering = ponder;
+    }
+
+    /**
+     * Der Gegner hat den erwarteten Zug gespielt: die laufende Ponder-Suche wird zu einer normalen Suche,
+     * deren Zeit ab jetzt zählt.
+     */
+    public void ponderhit() {
+        if (pondering) {
+            pondering = false;
+            timeManager.ponderhit(this);
+        }
+    }
+
+    /**
+     * Sucht den besten Zug für die Seite am Zug. Die übergebene Stellung wird nicht verändert.
+     *
+     * @param board Die Stellung.
+     * @return Der beste Zug oder {@link Move#NONE}, wenn es keinen legalen Zug gibt.
+     */
+    public int search(Board board) {
+        begin();
+        return run(board);
+    }
+
+    /**
+     * Startet die Suche in einem eigenen Thread und kehrt sofort zurück, z.B. für das UCI-Protokoll.
+     * Stopp-Flag und Uhr werden noch im aufrufenden Thread zurückgesetzt, ein {@link #stop()} oder
+     * {@link #ponderhit()} direkt nach dem Aufruf geht also nicht verloren. Eine noch laufende Suche
+     * wird vorher abgewartet.
+     *
+     * @param board      Die Stellung, sie wird kopiert und kann sofort weiterverwendet werden.
+     * @param onFinished Erhält im Such-Thread den besten Zug oder {@link Move#NONE}.
+     */
+    public void startSearch(Board board, IntConsumer onFinished) {
+        waitForSearch();
+        begin();
+        Board position = new Board(board);
+        searchThread = new Thread(() -> onFinished.accept(run(position)), "Suche-0");
+        searchThread.start();
+    }
+
+    /**
+     * Gibt zurück, ob eine mit {@link #startSearch} gestartete Suche noch läuft.
+     *
+     * @return True, solange der Such-Thread lebt.
+     */
+    public boolean isSearching() {
+        Thread thread = searchThread;
+        return thread != null && thread.isAlive();
+    }
+
+    /**
+     * Wartet, bis die mit {@link #startSearch} gestartete Suche beendet ist.
+     */
+    public void waitForSearch() {
+        Thread thread = searchThread;
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        searchThread = null;
+    }
+
+    /**
+     * Setzt das Stopp-Flag zurück und startet die Uhr.
+     */
+    private void begin() {
+        stopped = false;
+        timeManager.start(this, pondering);
+    }
+
+    private int run(Board board) {
+        table.newSearch();
+        Search[] workers = new Search[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Search(this, new Board(board), i);
+        }
+        searches = workers;
+
+        Thread[] helpers = new Thread[threads - 1];
+        for (int i = 1; i < threads; i++) {
+            Search helper = workers[i];
+            helpers[i - 1] = new Thread(() -> helper.iterate(maxDepth), "Suche-" + i);
+            helpers[i - 1].start();
+        }
+        try {
+            lastInfo = workers[0].iterate(maxDepth);
+        } finally {
+            // Der Hauptthread ist fertig, die Hilfsthreads werden nicht mehr gebraucht
+            pondering = false;
+            timeManager.finish();
+            stopped = true;
+            for (Thread helper : helpers) {
+                try {
+                    helper.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        return lastInfo.getBestMove();
+    }
+
+    /**
+     * Bricht die laufende Suche ab; {@link #search(Board)} gibt dann den besten Zug der letzten
+     * abgeschlossenen Iteration zurück.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Gibt das Ergebnis der letzten Suche zurück.
+     *
+     * @return Das Ergebnis oder null, wenn noch nicht gesucht wurde.
+     */
+    public Info getLastInfo() {
+        return lastInfo;
+    }
+
+    /**
+     * Gibt die Transpositionstabelle zurück.
+     *
+     * @return Die Tabelle.
+     */
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Gibt die Zeiteinteilung zurück, z.B. für ihre Statistik.
+     *
+     * @return Der TimeManager.
+     */
+    public TimeManager getTimeManager() {
+        return timeManager;
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+    long getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * Gibt die Summe der besuchten Knoten aller Threads der laufenden bzw. letzten Suche zurück.
+     *
+     * @return Die Knotenzahl.
+     */
+    public long getNodes() {
+        long total = 0;
+        for (Search search : searches) {
+            total += search.getNodes();
+        }
+        return total;
+    }
+
+    /**
+     * Gibt den Anteil der Beta-Schnitte zurück, die schon beim ersten probierten Zug eintraten.
+     * Je höher, desto besser ist die Zugsortierung.
+     *
+     * @return Der Anteil zwischen 0 und 1.
+     */
+    public double getFirstMoveCutoffRate() {
+        long cutoffs = 0;
+        long first = 0;
+        for (Search search : searches) {
+            cutoffs += search.getCutoffs();
+            first += search.getFirstMoveCutoffs();
+        }
+        return cutoffs == 0 ? 0 : (double) first / cutoffs;
+    }
+
+    /**
+     * Beschreibt, wie oft die selektiven Verfahren in der laufenden bzw. letzten Suche gegriffen haben.
+     *
+     * @return Die Beschreibung.
+     */
+    public String describePruning() {
+        long nullMoves = 0;
+        long nullCutoffs = 0;
+        long reductions = 0;
+        long reSearches = 0;
+        long futility = 0;
+        long lateMoves = 0;
+        for (Search search : searches) {
+            nullMoves += search.getNullMoves();
+            nullCutoffs += search.getNullMoveCutoffs();
+            reductions += search.getReductions();
+            reSearches += search.getReSearches();
+            futility += search.getFutilityCutoffs();
+            lateMoves += search.getLateMovesPruned();
+        }
+        return String.format("Nullzug %s: %d Versuche, %d Schnitte; LMR %s: %d reduziert, %d neu gesucht; "
+                        + "RFP %s: %d Schnitte; LMP %s: %d Züge übersprungen",
+                onOff(Pruning.NULL_MOVE), nullMoves, nullCutoffs, onOff(Pruning.LATE_MOVE_REDUCTION), reductions, reSearches,
+                onOff(Pruning.REVERSE_FUTILITY), futility, onOff(Pruning.LATE_MOVE_PRUNING), lateMoves);
+    }
+
+    private String onOff(Pruning technique) {
+        return isEnabled(technique) ? "an" : "aus";
+    }
+
+    /**
+     * Misst, wie die Suche mit der Anzahl der Threads skaliert: für 1, 2, 4, ... bis N Threads wird die
+     * Zeit bis zur angegebenen Tiefe und die Anzahl der Knoten pro Sekunde ausgegeben, jeweils mit einer
+     * frischen Transpositionstabelle. Die Skalierung hängt von der Anzahl der freien Kerne ab.
+     *
+     * @param board      Die Stellung.
+     * @param depth      Die Tiefe.
+     * @param maxThreads Die größte Anzahl an Threads.
+     * @param megabytes  Die Größe der Transpositionstabelle in MB.
+     * @param out        Die Ausgabe.
+     */
+    public static void measureScaling(Board board, int depth, int maxThreads, int megabytes, PrintStream out) {
+        measureScaling(board, depth, maxThreads, megabytes, EnumSet.allOf(Pruning.class), out);
+    }
+
+    /**
+     * Wie {@link #measureScaling(Board, int, int, int, PrintStream)}, nur mit den angegebenen selektiven Verfahren.
+     *
+     * @param board      Die Stellung.
+     * @param depth      Die Tiefe.
+     * @param maxThreads Die größte Anzahl an Threads.
+     * @param megabytes  Die Größe der Transpositionstabelle in MB.
+     * @param pruning    Die eingeschalteten Verfahren.
+     * @param out        Die Ausgabe.
+     */
+    public static void measureScaling(Board board, int depth, int maxThreads, int megabytes, Set<Pruning> pruning, PrintStream out) {
+        // Ein ungemessener Lauf vorweg, damit der erste gemessene nicht den JIT mitbezahlt
+        Engine warmup = new Engine(megabytes);
+        warmup.setDepth(depth);
+        warmup.search(board);
+
+        long baseMillis = 0;
+        long baseNps = 0;
+        for (int threads = 1; threads <= maxThreads; threads = threads == maxThreads ? threads + 1 : Math.min(2 * threads, maxThreads)) {
+            Engine engine = new Engine(megabytes);
+            for (Pruning technique : Pruning.values()) {
+                engine.setPruning(technique, pruning.contains(technique));
+            }
+            engine.setThreads(threads);
+            engine.setDepth(depth);
+            long start = System.nanoTime();
+            int move = engine.search(board);
+            long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            Info info = engine.getLastInfo();
+            long nps = engine.getNodes() * 1000 / millis;
+            if (threads == 1) {
+                baseMillis = millis;
+                baseNps = nps;
+            }
+            out.printf("%2d Threads: Tiefe %d in %d ms, %d Knoten, %d Knoten/s, Zeit %.2fx, Knoten/s %.2fx, Schnitt beim ersten Zug %.1f %%, Zug %s%n",
+                    threads, info.getDepth(), millis, engine.getNodes(), nps, (double) baseMillis / millis,
+                    (double) nps / Math.max(1, baseNps), 100 * engine.getFirstMoveCutoffRate(), Move.toString(move));
+            out.println("            " + engine.searches[0].getEvaluator().describe());
+            out.println("            " + engine.describePruning());
+        }
+    }
+
+    /**
+     * Meldet eine abgeschlossene Iteration an den Listener.
+     */
+    void report(Info info) {
+        if (listener != null) {
+            listener.accept(info);
+        }
+    }
+
+    /**
+     * Die selektiven Verfahren der Suche, die Teile des Baums abschneiden oder flacher durchsuchen.
+     */
+    public enum Pruning {
+        /**
+         * Nullzug: reicht es sogar, den Gegner zweimal ziehen zu lassen, für einen Beta-Schnitt, wird der
+         * Knoten abgeschnitten. Nicht im Schach und nicht, wenn nur noch König und Bauern übrig sind (Zugzwang).
+         */
+        NULL_MOVE("nmp"),
+        /**
+         * Late Move Reductions: späte ruhige Züge werden nach einer Tabelle flacher gesucht und nur bei einer
+         * Verbesserung mit voller Tiefe wiederholt.
+         */
+        LATE_MOVE_REDUCTION("lmr"),
+        /**
+         * Reverse Futility Pruning: liegt die statische Bewertung nahe den Blättern weit genug über beta,
+         * wird der Knoten abgeschnitten.
+         */
+        REVERSE_FUTILITY("rfp"),
+        /**
+         * Late Move Pruning: nahe den Blättern werden nach genügend ruhigen Zügen die restlichen übergangen.
+         */
+        LATE_MOVE_PRUNING("lmp");
+
+        private final String key;
+
+        Pruning(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Gibt das Kürzel für die Kommandozeile zurück, z.B. "nmp".
+         */
+        public String getKey() {
+            return key;
+        }
+    }
+
+    /**
+     * Das Ergebnis einer Iteration: Tiefe, Bewertung, Knoten, Zeit und Hauptvariante.
+     */
+    public static final class Info {
+        private final int depth;
+        private final int score;
+        private final long nodes;
+        private final long nanos;
+        private final int[] pv;
+
+        Info(int depth, int score, long nodes, long nanos, int[] pv) {
+            this.depth = depth;
+            this.score = score;
+            this.nodes = nodes;
+            this.nanos = nanos;
+            this.pv = pv;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Gibt die Bewertung aus Sicht der Seite am Zug in Centipawns zurück (siehe {@link #MATE}).
+         */
+        public int getScore() {
+            return score;
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+
+        public long getMillis() {
+            return nanos / 1_000_000;
+        }
+
+        /**
+         * Gibt die Knoten pro Sekunde zurück.
+         */
+        public long getNps() {
+            return nodes * 1_000_000_000L / Math.max(1, nanos);
+        }
+
+        /**
+         * Gibt die Hauptvariante zurück.
+         */
+        public int[] getPv() {
+            return pv.clone();
+        }
+
+        /**
+         * Gibt den besten Zug zurück.
+         *
+         * @return Der erste Zug der Hauptvariante oder {@link Move#NONE}.
+         */
+        public int getBestMove() {
+            return pv.length > 0 ? pv[0] : Move.NONE;
+        }
+
+        /**
+         * Gibt die Anzahl der Züge bis zum Matt zurück.
+         *
+         * @return Positiv, wenn die Seite am Zug mattsetzt, negativ, wenn sie mattgesetzt wird, sonst 0.
+         */
+        public int getMateIn() {
+            if (Math.abs(score) < MATE - MAX_PLY) {
+                return 0;
+            }
+            return score > 0 ? (MATE - score + 1) / 2 : -(MATE + score) / 2;
+        }
+
+        /**
+         * Gibt die Hauptvariante in Koordinatenschreibweise zurück, z.B. "e2e4 e7e5".
+         */
+        public String pvString() {
+            StringBuilder builder = new StringBuilder();
+            for (int move : pv) {
+                if (builder.length() > 0) {
+                    builder.append(' ');
+                }
+                builder.append(Move.toString(move));
+            }
+            return builder.toString();
+        }
+
+        @Override
+        public String toString() {
+            String value = getMateIn() != 0 ? "Matt in " + getMateIn() : String.format("%+.2f", score / 100.0);
+            return String.format("Tiefe %d  Bewertung %s  Knoten %d  Zeit %d ms  Knoten/s %d  PV %s",
+                    depth, value, nodes, getMillis(), getNps(), pvString());
+        }
+    }
+}
@@ -0,0 +1,459 @@
+/**
+ * Bewertet eine Stellung in Centipawns aus Sicht der Seite am Zug.
+ * <p>
+ * Material und Figur-Feld-Tabellen werden für Mittel- und Endspiel getrennt vom {@link Board} bei jedem
+ * Setzen und Entfernen einer Figur nachgeführt, ebenso die Spielphase (Springer und Läufer zählen 1,
+ * Türme 2, Damen 4, zusammen höchstens 24). Eine Bewertung mischt daraus nur noch die beiden Werte nach
+ * der Phase ("tapered evaluation") und kostet damit ein paar Additionen.
+ * <p>
+ * Beweglichkeit und Königssicherheit müssen die Angriffe aller Figuren berechnen. Das geschieht nur,
+ * wenn die schnelle Bewertung höchstens {@link #LAZY_MARGIN} außerhalb des Suchfensters liegt; sonst
+ * könnten sie am Ergebnis der Suche ohnehin nichts ändern.
+ * <p>
+ * Die Bauernstruktur (Freibauern, Doppel-, isolierte und rückständige Bauern, Bauernschilde) wird im
+ * {@link PawnHashTable} zwischengespeichert und nur bei einer neuen Bauernstellung berechnet.
+ * <p>
+ * Ein Evaluator gehört zu einem Such-Thread und ist nicht threadsicher.
+ */
+public class Evaluator {
+    /**
+     * Die Phase mit allen Figuren auf dem Brett.
+     */
+    public static final int MAX_PHASE = 24;
+    /**
+     * Beitrag je Figurentyp zur Phase.
+     */
+    static final int[] PHASE = {0, 1, 1, 2, 4, 0};
+    /**
+     * Weiter als diese Centipawns außerhalb des Fensters werden Beweglichkeit und Königssicherheit nicht berechnet.
+     */
+    static final int LAZY_MARGIN = 250;
+
+    private static final int[] MIDGAME_VALUES = {82, 337, 365, 477, 1025, 0};
+    private static final int[] ENDGAME_VALUES = {94, 281, 297, 512, 936, 0};
+
+    // Figur-Feld-Tabellen aus Sicht von Weiß, die 8. Reihe steht oben (wie auf dem Brett)
+    private static final int[] PAWN_MIDGAME = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+         50,  50,  50,  50,  50,  50,  50,  50,
+         10,  10,  20,  30,  30,  20,  10,  10,
+          5,   5,  10,  25,  25,  10,   5,   5,
+          0,   0,   0,  20,  20,   0,   0,   0,
+          5,  -5, -10,   0,   0, -10,  -5,   5,
+          5,  10,  10, -20, -20,  10,  10,   5,
+          0,   0,   0,   0,   0,   0,   0,   0,
+    };
+    private static final int[] PAWN_ENDGAME = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+         90,  90,  90,  90,  90,  90,  90,  90,
+         50,  50,  50,  50,  50,  50,  50,  50,
+         30,  30,  30,  30,  30,  30,  30,  30,
+         15,  15,  15,  15,  15,  15,  15,  15,
+          5,   5,   5,   5,   5,   5,   5,   5,
+          0,   0,   0,   0,   0,   0,   0,   0,
+          0,   0,   0,   0,   0,   0,   0,   0,
+    };
+    private static final int[] KNIGHT_TABLE = {
+        -50, -40, -30, -30, -30, -30, -40, -50,
+        -40, -20,   0,   0,   0,   0, -20, -40,
+        -30,   0,  10,  15,  15,  10,   0, -30,
+        -30,   5,  15,  20,  20,  15,   5, -30,
+        -30,   0,  15,  20,  20,  15,   0, -30,
+        -30,   5,  10,  15,  15,  10,   5, -30,
+        -40, -20,   0,   5,   5,   0, -20, -40,
+        -50, -40, -30, -30, -30, -30, -40, -50,
+    };
+    private static final int[] BISHOP_TABLE = {
+        -20, -10, -10, -10, -10, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,  10,  10,   5,   0, -10,
+        -10,   5,   5,  10,  10,   5,   5, -10,
+        -10,   0,  10,  10,  10,  10,   0, -10,
+        -10,  10,  10,  10,  10,  10,  10, -10,
+        -10,   5,   0,   0,   0,   0,   5, -10,
+        -20, -10, -10, -10, -10, -10, -10, -20,
+    };
+    private static final int[] ROOK_TABLE = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+          5,  10,  10,  10,  10,  10,  10,   5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+          0,   0,   0,   5,   5,   0,   0,   0,
+    };
+    private static final int[] QUEEN_TABLE = {
+        -20, -10, -10,  -5,  -5, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,   5,   5,   5,   0, -10,
+         -5,   0,   5,   5,   5,   5,   0,  -5,
+          0,   0,   5,   5,   5,   5,   0,  -5,
+        -10,   5,   5,   5,   5,   5,   0, -10,
+        -10,   0,   5,   0,   0,   0,   0, -10,
+        -20, -10, -10,  -5,  -5, -10, -10, -20,
+    };
+    private static final int[] KING_MIDGAME = {
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -20, -30, -30, -40, -40, -30, -30, -20,
+        -10, -20, -20, -20, -20, -20, -20, -10,
+         20,  20,   0,   0,   0,   0,  20,  20,
+         20,  30,  10,   0,   0,  10,  30,  20,
+    };
+    private static final int[] KING_ENDGAME = {
+        -50, -40, -30, -20, -20, -30, -40, -50,
+        -30, -20, -10,   0,   0, -10, -20, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -30,   0,   0,   0,   0, -30, -30,
+        -50, -30, -30, -30, -30, -30, -30, -50,
+    };
+
+    /**
+     * Material plus Figur-Feld-Wert je Farbe, Typ und Feld, für Schwarz negativ, damit {@link Board} nur addieren muss.
+     */
+    static final int[][][] MIDGAME = new int[2][6][64];
+    static final int[][][] ENDGAME = new int[2][6][64];
+
+    static {
+        int[][] midgame = {PAWN_MIDGAME, KNIGHT_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE, KING_MIDGAME};
+        int[][] endgame = {PAWN_ENDGAME, KNIGHT_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE, KING_ENDGAME};
+        for (int type = Board.PAWN; type <= Board.KING; type++) {
+            for (int square = 0; square < 64; square++) {
+                // Die Tabellen beginnen mit a8, für Weiß wird die Reihe gespiegelt
+                MIDGAME[Board.WHITE][type][square] = MIDGAME_VALUES[type] + midgame[type][square ^ 56];
+                ENDGAME[Board.WHITE][type][square] = ENDGAME_VALUES[type] + endgame[type][square ^ 56];
+                MIDGAME[Board.BLACK][type][square] = -(MIDGAME_VALUES[type] + midgame[type][square]);
+                ENDGAME[Board.BLACK][type][square] = -(ENDGAME_VALUES[type] + endgame[type][square]);
+            }
+        }
+    }
+
+    // Beweglichkeit je erreichbarem Feld, das nicht von eigenen Figuren oder gegnerischen Bauern besetzt bzw. gedeckt ist
+    private static final int[] MOBILITY_MIDGAME = {0, 4, 5, 2, 1, 0};
+    private static final int[] MOBILITY_ENDGAME = {0, 4, 5, 4, 2, 0};
+    /**
+     * Gewicht je Angriff auf das Umfeld des Königs nach Typ des Angreifers, zählt nur im Mittelspiel.
+     */
+    private static final int[] KING_ATTACK_WEIGHT = {0, 2, 2, 3, 5, 0};
+    /**
+     * Abzug nach der Summe der gewichteten Angriffe auf das Königsumfeld.
+     */
+    private static final int[] KING_DANGER = new int[64];
+
+    static {
+        for (int i = 0; i < KING_DANGER.length; i++) {
+            KING_DANGER[i] = Math.min(500, i * i / 2);
+        }
+    }
+
+    // Bauernstruktur: Abzüge je Bauer, Bonus für Freibauern je relativer Reihe
+    private static final int DOUBLED_MIDGAME = -10;
+    private static final int DOUBLED_ENDGAME = -20;
+    private static final int ISOLATED_MIDGAME = -10;
+    private static final int ISOLATED_ENDGAME = -15;
+    private static final int BACKWARD_MIDGAME = -8;
+    private static final int BACKWARD_ENDGAME = -10;
+    private static final int[] PASSED_MIDGAME = {0, 5, 10, 15, 25, 40, 60, 0};
+    private static final int[] PASSED_ENDGAME = {0, 10, 20, 35, 60, 100, 150, 0};
+    /**
+     * Zusätzlich im Endspiel, wenn das Feld vor dem Freibauern frei ist.
+     */
+    private static final int[] PASSED_FREE = {0, 0, 5, 10, 20, 35, 50, 0};
+    /**
+     * Bauernschild je Linie vor dem König: ein Bauer auf der 2. oder 3. Reihe bzw. keiner.
+     */
+    private static final int SHIELD_SECOND_RANK = 12;
+    private static final int SHIELD_THIRD_RANK = 6;
+    private static final int SHIELD_MISSING = -15;
+
+    /**
+     * Die Felder einer Linie und der Nachbarlinien.
+     */
+    private static final long[] FILES = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+    /**
+     * Die Felder vor einem Bauern auf derselben Linie, je Farbe und Feld.
+     */
+    private static final long[][] FORWARD = new long[2][64];
+    /**
+     * Die Felder vor einem Bauern auf derselben und den Nachbarlinien: steht dort kein gegnerischer Bauer,
+     * ist er ein Freibauer.
+     */
+    private static final long[][] PASSED_SPAN = new long[2][64];
+    /**
+     * Die Felder der Nachbarlinien auf derselben Reihe und dahinter: steht dort kein eigener Bauer,
+     * kann der Bauer nicht mehr gedeckt werden.
+     */
+    private static final long[][] SUPPORT_SPAN = new long[2][64];
+
+    static {
+        for (int file = 0; file < 8; file++) {
+            FILES[file] = 0x0101010101010101L << file;
+        }
+        for (int file = 0; file < 8; file++) {
+            ADJACENT_FILES[file] = (file > 0 ? FILES[file - 1] : 0) | (file < 7 ? FILES[file + 1] : 0);
+        }
+        for (int square = 0; square < 64; square++) {
+            int file = square % 8;
+            // Alle Felder auf den Reihen davor bzw. dahinter
+            long above = square < 56 ? -1L << ((square | 7) + 1) : 0L;
+            long below = (1L << (square & ~7)) - 1;
+            FORWARD[Board.WHITE][square] = above & FILES[file];
+            FORWARD[Board.BLACK][square] = below & FILES[file];
+            PASSED_SPAN[Board.WHITE][square] = above & (FILES[file] | ADJACENT_FILES[file]);
+            PASSED_SPAN[Board.BLACK][square] = below & (FILES[file] | ADJACENT_FILES[file]);
+            long rankAndBelow = -1L >>> (63 - (square | 7));
+            long rankAndAbove = -1L << (square & ~7);
+            SUPPORT_SPAN[Board.WHITE][square] = rankAndBelow & ADJACENT_FILES[file];
+            SUPPORT_SPAN[Board.BLACK][square] = rankAndAbove & ADJACENT_FILES[file];
+        }
+    }
+
+    /**
+     * Anzahl der Einträge im Bauern-Hash je Evaluator.
+     */
+    private static final int PAWN_TABLE_ENTRIES = 1 << 14;
+
+    private final PawnHashTable pawnTable;
+    /**
+     * Puffer für die Bauernschilde beim Füllen eines Eintrags.
+     */
+    private final byte[] shieldBuffer = new byte[16];
+    private final long[] passedBuffer = new long[2];
+
+    private long evaluations;
+    private long fullEvaluations;
+
+    /**
+     * Konstruktor für Evaluator mit einem eigenen Bauern-Hash in Standardgröße.
+     */
+    public Evaluator() {
+        this(new PawnHashTable(PAWN_TABLE_ENTRIES));
+    }
+
+    /**
+     * Konstruktor für Evaluator.
+     *
+     * @param pawnTable Der Zwischenspeicher für die Bauernstruktur.
+     */
+    public Evaluator(PawnHashTable pawnTable) {
+        this.pawnTable = pawnTable;
+    }
+
+    /**
+     * Bewertet die Stellung vollständig.
+     *
+     * @param board Die Stellung.
+     * @return Die Bewertung aus Sicht der Seite am Zug.
+     */
+    public int evaluate(Board board) {
+        return evaluate(board, -Engine.INFINITY, Engine.INFINITY);
+    }
+
+    /**
+     * Bewertet die Stellung; Beweglichkeit und Königssicherheit nur, wenn die schnelle Bewertung nahe genug
+     * am Fenster liegt.
+     *
+     * @param board Die Stellung.
+     * @param alpha Die untere Grenze des Suchfensters aus Sicht der Seite am Zug.
+     * @param beta  Die obere Grenze des Suchfensters.
+     * @return Die Bewertung aus Sicht der Seite am Zug.
+     */
+    public int evaluate(Board board, int alpha, int beta) {
+        evaluations++;
+        int phase = Math.min(board.getPhase(), MAX_PHASE);
+        int midgame = board.getMidgameScore();
+        int endgame = board.getEndgameScore();
+        int sign = board.getSideToMove() == Board.WHITE ? 1 : -1;
+
+        int pawns = pawnEntry(board);
+        midgame += pawnTable.midgame(pawns);
+        endgame += pawnTable.endgame(pawns);
+        for (int color = Board.WHITE; color <= Board.BLACK; color++) {
+            int king = Long.numberOfTrailingZeros(board.getBitboard(color, Board.KING));
+            int relativeRank = color == Board.WHITE ? king / 8 : 7 - king / 8;
+            if (relativeRank <= 1) {
+                midgame += (color == Board.WHITE ? 1 : -1) * pawnTable.shield(pawns, color, king % 8);
+            }
+        }
+
+        int score = sign * taper(midgame, endgame, phase);
+        if (score + LAZY_MARGIN <= alpha || score - LAZY_MARGIN >= beta) {
+            return score;
+        }
+
+        fullEvaluations++;
+        long occupied = board.getOccupied();
+        for (int color = Board.WHITE; color <= Board.BLACK; color++) {
+            int them = 1 - color;
+            int side = color == Board.WHITE ? 1 : -1;
+            long own = board.getOccupancy(color);
+            long safe = ~own & ~Attacks.pawns(them, board.getBitboard(them, Board.PAWN));
+            int enemyKing = Long.numberOfTrailingZeros(board.getBitboard(them, Board.KING));
+            long kingZone = Attacks.king(enemyKing) | 1L << enemyKing;
+            int kingAttacks = 0;
+            for (int type = Board.KNIGHT; type <= Board.QUEEN; type++) {
+                for (long bb = board.getBitboard(color, type); bb != 0; bb &= bb - 1) {
+                    long attacks = attacks(type, Long.numberOfTrailingZeros(bb), occupied);
+                    int mobility = Long.bitCount(attacks & safe);
+                    midgame += side * MOBILITY_MIDGAME[type] * mobility;
+                    endgame += side * MOBILITY_ENDGAME[type] * mobility;
+                    kingAttacks += KING_ATTACK_WEIGHT[type] * Long.bitCount(attacks & kingZone);
+                }
+            }
+            midgame += side * KING_DANGER[Math.min(kingAttacks, KING_DANGER.length - 1)];
+
+            // Freibauern: freie Bahn und Nähe der Könige zum Feld davor
+            int ownKing = Long.numberOfTrailingZeros(board.getBitboard(color, Board.KING));
+            for (long bb = pawnTable.passed(pawns, color); bb != 0; bb &= bb - 1) {
+                int square = Long.numberOfTrailingZeros(bb);
+                int relativeRank = color == Board.WHITE ? square / 8 : 7 - square / 8;
+                int stop = square + (color == Board.WHITE ? 8 : -8);
+                if ((occupied & 1L << stop) == 0) {
+                    endgame += side * PASSED_FREE[relativeRank];
+                }
+                if (relativeRank >= 3) {
+                    endgame += side * (5 * distance(enemyKing, stop) - 2 * distance(ownKing, stop));
+                }
+            }
+        }
+        return sign * taper(midgame, endgame, phase);
+    }
+
+    /**
+     * Gibt den Eintrag der Bauernstellung im {@link PawnHashTable} zurück und berechnet ihn bei Bedarf.
+     */
+    private int pawnEntry(Board board) {
+        long key = board.pawnHash();
+        int slot = pawnTable.probe(key);
+        if (slot >= 0) {
+            return slot;
+        }
+        slot = -slot - 1;
+        int midgame = 0;
+        int endgame = 0;
+        long[] passed = passedBuffer;
+        passed[Board.WHITE] = 0L;
+        passed[Board.BLACK] = 0L;
+        for (int color = Board.WHITE; color <= Board.BLACK; color++) {
+            int side = color == Board.WHITE ? 1 : -1;
+            long own = board.getBitboard(color, Board.PAWN);
+            long enemy = board.getBitboard(1 - color, Board.PAWN);
+            for (long bb = own; bb != 0; bb &= bb - 1) {
+                int square = Long.numberOfTrailingZeros(bb);
+                int file = square % 8;
+                boolean doubled = (FORWARD[color][square] & own) != 0;
+                boolean isolated = (ADJACENT_FILES[file] & own) == 0;
+                if (doubled) {
+                    midgame += side * DOUBLED_MIDGAME;
+                    endgame += side * DOUBLED_ENDGAME;
+                }
+                if (isolated) {
+                    midgame += side * ISOLATED_MIDGAME;
+                    endgame += side * ISOLATED_ENDGAME;
+                } else if ((SUPPORT_SPAN[color][square] & own) == 0) {
+                    // Rückständig: keine Deckung mehr möglich und das Feld davor von einem Bauern bewacht
+                    int stop = square + (color == Board.WHITE ? 8 : -8);
+                    if ((Attacks.pawn(color, stop) & enemy) != 0) {
+                        midgame += side * BACKWARD_MIDGAME;
+                        endgame += side * BACKWARD_ENDGAME;
+                    }
+                }
+                if (!doubled && (PASSED_SPAN[color][square] & enemy) == 0) {
+                    int relativeRank = color == Board.WHITE ? square / 8 : 7 - square / 8;
+                    midgame += side * PASSED_MIDGAME[relativeRank];
+                    endgame += side * PASSED_ENDGAME[relativeRank];
+                    passed[color] |= 1L << square;
+                }
+            }
+            // Bauernschild für jede Linie, auf der der König auf der Grundreihe oder davor steht
+            int second = color == Board.WHITE ? 1 : 6;
+            int third = color == Board.WHITE ? 2 : 5;
+            for (int kingFile = 0; kingFile < 8; kingFile++) {
+                int shield = 0;
+                for (int file = Math.max(0, kingFile - 1); file <= Math.min(7, kingFile + 1); file++) {
+                    if ((own & 1L << (second * 8 + file)) != 0) {
+                        shield += SHIELD_SECOND_RANK;
+                    } else if ((own & 1L << (third * 8 + file)) != 0) {
+                        shield += SHIELD_THIRD_RANK;
+                    } else {
+                        shield += SHIELD_MISSING;
+                    }
+                }
+                shieldBuffer[8 * color + kingFile] = (byte) shield;
+            }
+        }
+        pawnTable.store(slot, key, midgame, endgame, passed[Board.WHITE], passed[Board.BLACK], shieldBuffer);
+        return slot;
+    }
+
+    /**
+     * Die Anzahl der Königszüge zwischen zwei Feldern.
+     */
+    private static int distance(int a, int b) {
+        return Math.max(Math.abs(a / 8 - b / 8), Math.abs(a % 8 - b % 8));
+    }
+
+    private static long attacks(int type, int square, long occupied) {
+        switch (type) {
+            case Board.KNIGHT:
+                return Attacks.knight(square);
+            case Board.BISHOP:
+                return Attacks.bishop(square, occupied);
+            case Board.ROOK:
+                return Attacks.rook(square, occupied);
+            default:
+                return Attacks.bishop(square, occupied) | Attacks.rook(square, occupied);
+        }
+    }
+
+    /**
+     * Mischt Mittel- und Endspielwert nach der Phase.
+     */
+    private static int taper(int midgame, int endgame, int phase) {
+        return (midgame * phase + endgame * (MAX_PHASE - phase)) / MAX_PHASE;
+    }
+
+    /**
+     * Gibt den Anteil der Bewertungen zurück, für die Beweglichkeit und Königssicherheit berechnet wurden.
+     *
+     * @return Der Anteil zwischen 0 und 1.
+     */
+    public double getFullEvaluationRate() {
+        return evaluations == 0 ? 0 : (double) fullEvaluations / evaluations;
+    }
+
+    /**
+     * Gibt den Zwischenspeicher für die Bauernstruktur zurück, z.B. für seine Trefferquote.
+     *
+     * @return Der Bauern-Hash.
+     */
+    public PawnHashTable getPawnTable() {
+        return pawnTable;
+    }
+
+    /**
+     * Beschreibt die Statistik der Bewertung für die Ausgabe.
+     *
+     * @return Die Beschreibung.
+     */
+    public String describe() {
+        return String.format("Bewertung: %d Stellungen, davon %.1f %% vollständig, Bauern-Hash %d Einträge, Treffer %.1f %%",
+                evaluations, 100 * getFullEvaluationRate(), pawnTable.size(), 100 * pawnTable.hitRate());
+    }
+
+    /**
+     * Gibt die Anzahl der Bewertungen zurück.
+     *
+     * @return Die Anzahl.
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+}
@@ -0,0 +1,427 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Verwaltet viele gleichzeitige Partien in einer JVM, z.B. für einen Spielserver.
+ * <p>
+ * Jede Partie hat ihr eigenes {@link Board} mit dem ganzen Spielzustand, auch wer am Zug ist.
+ * Anfragen an eine Partie laufen auf virtuellen Threads und werden je Partie nacheinander ausgeführt:
+ * jede Partie hat eine eigene Warteschlange, die immer höchstens ein Thread abarbeitet.
+ * Eine globale Sperre gibt es nicht; die Partien liegen in einer {@link ConcurrentHashMap}, verschiedene
+ * Partien laufen unabhängig voneinander.
+ * <p>
+ * Virtuelle Threads gibt es ab Java 21; mit Java 17 laufen die Anfragen auf einem festen Pool mit einem Thread
+ * je Prozessorkern. Da jede Anfrage kurz ist und nie blockiert, reicht das auch für zehntausende Partien; es
+ * entsteht nie ein Thread je Partie.
+ * <p>
+ * Der Speicherbedarf je Partie wird mit {@link #measureBytesPerGame(int)} gemessen, daraus ergibt sich,
+ * wie viele Partien in ein Gigabyte Heap passen ({@link #getGamesPerGigabyte()}).
+ */
+public class GameSessionManager implements AutoCloseable {
+    /**
+     * Der Zustand einer Partie nach einem Zug.
+     */
+    public enum Status {
+        /**
+         * Die Partie läuft weiter.
+         */
+        ONGOING,
+        /**
+         * Die Seite am Zug ist matt.
+         */
+        CHECKMATE,
+        /**
+         * Die Seite am Zug ist patt.
+         */
+        STALEMATE,
+        /**
+         * Remis nach der 50-Züge-Regel.
+         */
+        DRAW,
+        /**
+         * Der Zug war ungültig oder nicht legal, die Stellung ist unverändert.
+         */
+        ILLEGAL_MOVE
+    }
+
+    /**
+     * Die Anzahl der Partien, über die {@link #measureBytesPerGame(int)} standardmäßig mittelt.
+     */
+    public static final int DEFAULT_SAMPLES = 10_000;
+
+    private final ConcurrentHashMap<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final AtomicLong moves = new AtomicLong();
+    /**
+     * Der zuletzt gemessene Speicherbedarf je Partie in Bytes oder 0, solange nicht gemessen wurde.
+     */
+    private volatile long bytesPerGame;
+
+    /**
+     * Eine Partie mit ihrer Warteschlange. Nur der Thread, der die Warteschlange gerade abarbeitet, greift auf
+     * das Brett zu.
+     */
+    private final class Session {
+        private final Board board;
+        private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        /**
+         * Gesetzt, solange ein Thread die Warteschlange abarbeitet.
+         */
+        private final AtomicBoolean running = new AtomicBoolean();
+
+        Session(Board board) {
+            this.board = board;
+        }
+
+        void submit(Runnable task) {
+            queue.add(task);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!queue.isEmpty() && running.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            Runnable task;
+            while ((task = queue.poll()) != null) {
+                task.run();
+            }
+            running.set(false);
+            // Eine Anfrage kann zwischen poll() und set(false) eingereiht worden sein
+            schedule();
+        }
+    }
+
+    /**
+     * Konstruktor für GameSessionManager. Nutzt virtuelle Threads, wenn die Laufzeitumgebung sie anbietet,
+     * sonst einen festen Pool mit einem Thread je Prozessorkern.
+     */
+    public GameSessionManager() {
+        ExecutorService virtual = newVirtualExecutor();
+        virtualThreads = virtual != null;
+        executor = virtual != null ? virtual : Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Erzeugt einen Executor mit einem virtuellen Thread je Aufgabe. Das Projekt wird für Java 17 übersetzt,
+     * daher wird die Methode erst zur Laufzeit gesucht.
+     *
+     * @return Der Executor oder null vor Java 21.
+     */
+    private static ExecutorService newVirtualExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gibt zurück, ob die Anfragen auf virtuellen Threads laufen.
+     *
+     * @return True, wenn der Executor virtuelle Threads verwendet, false beim festen Thread-Pool.
+     */
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Legt eine Partie mit der Grundstellung an.
+     *
+     * @return Die Nummer der Partie.
+     */
+    public long createGame() {
+        return register(new Board());
+    }
+
+    /**
+     * Legt eine Partie mit einer Stellung in FEN an.
+     *
+     * @param fen Die Stellung.
+     * @return Die Nummer der Partie.
+     * @throws IllegalArgumentException Wenn die FEN ungültig ist.
+     */
+    public long createGame(String fen) {
+        return register(new Board(fen));
+    }
+
+    private long register(Board board) {
+        long id = nextId.getAndIncrement();
+        sessions.put(id, new Session(board));
+        return id;
+    }
+
+    /**
+     * Beendet eine Partie. Bereits eingereihte Anfragen werden noch ausgeführt.
+     *
+     * @param gameId Die Nummer der Partie.
+     * @return True, wenn es die Partie gab.
+     */
+    public boolean closeGame(long gameId) {
+        return sessions.remove(gameId) != null;
+    }
+
+    /**
+     * Führt einen Zug in Koordinatenschreibweise (z.B. "e2e4" oder "e7e8q") für die Seite am Zug aus.
+     *
+     * @param gameId Die Nummer der Partie.
+     * @param move   Der Zug.
+     * @return Der Zustand der Partie nach dem Zug; schlägt mit {@link IllegalArgumentException} fehl,
+     *         wenn es die Partie nicht gibt.
+     */
+    public CompletableFuture<Status> submitMove(long gameId, String move) {
+        return submit(gameId, board -> {
+            int legal = board.findMove(move);
+            if (legal == Move.NONE) {
+                return Status.ILLEGAL_MOVE;
+            }
+            board.playMove(legal);
+            moves.incrementAndGet();
+            return status(board);
+        });
+    }
+
+    /**
+     * Führt eine beliebige Aktion auf dem Brett einer Partie aus, nach allen vorher eingereihten Anfragen
+     * derselben Partie. Das Brett darf außerhalb der Aktion nicht verwendet werden.
+     *
+     * @param gameId Die Nummer der Partie.
+     * @param action Die Aktion.
+     * @param <T>    Der Typ des Ergebnisses.
+     * @return Das Ergebnis der Aktion; schlägt fehl, wenn es die Partie nicht gibt oder die Aktion eine
+     *         Ausnahme wirft.
+     */
+    public <T> CompletableFuture<T> submit(long gameId, Function<Board, T> action) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Session session = sessions.get(gameId);
+        if (session == null) {
+            result.completeExceptionally(new IllegalArgumentException("Unbekannte Partie: " + gameId));
+            return result;
+        }
+        session.submit(() -> {
+            try {
+                result.complete(action.apply(session.board));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Schreibt eine Partie als PGN, z.B. wenn sie beendet ist. Das Ergebnis wird aus der Stellung bestimmt.
+     *
+     * @param gameId Die Nummer der Partie.
+     * @param writer Der Writer, er kann von mehreren Partien gleichzeitig verwendet werden.
+     * @param white  Der Spieler mit Weiß.
+     * @param black  Der Spieler mit Schwarz.
+     * @return Erfüllt, wenn die Partie im Puffer des Writers steht; schlägt mit {@link UncheckedIOException}
+     *         fehl, wenn nicht geschrieben werden kann.
+     */
+    public CompletableFuture<Void> archive(long gameId, PgnWriter writer, String white, String black) {
+        return submit(gameId, board -> {
+            try {
+                writer.writeGame(board, null, white, black, null);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Bestimmt den Zustand der Partie für die Seite am Zug.
+     */
+    private static Status status(Board board) {
+        if (!MoveGenerator.hasLegalMove(board, board.getSideToMove())) {
+            return board.isInCheck() ? Status.CHECKMATE : Status.STALEMATE;
+        }
+        return board.getHalfmoveClock() >= 100 ? Status.DRAW : Status.ONGOING;
+    }
+
+    /**
+     * Gibt die Anzahl der laufenden Partien zurück.
+     *
+     * @return Die Anzahl.
+     */
+    public int getActiveGames() {
+        return sessions.size();
+    }
+
+    /**
+     * Gibt die Anzahl der ausgeführten Züge über alle Partien zurück.
+     *
+     * @return Die Anzahl.
+     */
+    public long getMoves() {
+        return moves.get();
+    }
+
+    /**
+     * Misst den Speicherbedarf einer Partie mit Grundstellung: legt die angegebene Anzahl Partien an
+     * und vergleicht den belegten Heap vor und nach der Speicherbereinigung. Das Ergebnis ist ein
+     * Näherungswert; die Zugstapel wachsen in langen Partien. Die Messung löst mehrere vollständige
+     * Speicherbereinigungen aus und ist daher für Lasttests gedacht, nicht für laufende Server.
+     *
+     * @param samples Die Anzahl der Partien, über die gemittelt wird.
+     * @return Der Speicherbedarf je Partie in Bytes.
+     */
+    public long measureBytesPerGame(int samples) {
+        List<Session> probe = new ArrayList<>(samples);
+        long before = usedMemory();
+        for (int i = 0; i < samples; i++) {
+            probe.add(new Session(new Board()));
+        }
+        long after = usedMemory();
+        long bytes = Math.max(1, (after - before) / Math.max(1, probe.size()));
+        bytesPerGame = bytes;
+        return bytes;
+    }
+
+    /**
+     * Gibt den zuletzt mit {@link #measureBytesPerGame(int)} gemessenen Speicherbedarf je Partie zurück.
+     *
+     * @return Der Speicherbedarf in Bytes oder 0, solange nicht gemessen wurde.
+     */
+    public long getBytesPerGame() {
+        return bytesPerGame;
+    }
+
+    /**
+     * Gibt zurück, wie viele Partien in ein Gigabyte Heap passen, nach der letzten Messung.
+     *
+     * @return Die Anzahl der Partien oder 0, solange nicht gemessen wurde.
+     */
+    public long getGamesPerGigabyte() {
+        long bytes = bytesPerGame;
+        return bytes != 0 ? (1L << 30) / bytes : 0;
+    }
+
+    /**
+     * Gibt die Kennzahlen für die Ausgabe zurück; Speicher je Partie und Partien je GB nur, wenn schon
+     * gemessen wurde.
+     *
+     * @return Laufende Partien, ausgeführte Züge, Speicher je Partie und Partien je GB.
+     */
+    public String describe() {
+        String text = "Partien: " + getActiveGames() + ", Züge: " + getMoves();
+        long bytes = bytesPerGame;
+        if (bytes == 0) {
+            return text;
+        }
+        return text + ", Speicher je Partie: " + bytes + " Bytes, Partien je GB: " + getGamesPerGigabyte();
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Beendet alle Partien und wartet, bis die eingereihten Anfragen abgearbeitet sind.
+     */
+    @Override
+    public void close() {
+        sessions.clear();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Lasttest: legt die Partien an und lässt in jeder gleichzeitig die angegebene Anzahl Züge spielen.
+     * Jeder Zug ist eine eigene Anfrage; gewählt wird ein legaler Zug abhängig vom Zobrist-Schlüssel,
+     * damit der Test wiederholbar ist. Die Züge laufen in Runden: jede Partie zieht einmal, dann die nächste
+     * Runde. Eine beendete Partie spielt nicht weiter.
+     *
+     * @param games   Die Anzahl der Partien.
+     * @param plies   Die Anzahl der Züge je Partie.
+     * @param archive Die Datei, in die am Ende alle Partien als PGN geschrieben werden, oder null.
+     * @param out     Die Ausgabe.
+     * @return Die Anzahl der ausgeführten Züge.
+     * @throws IOException Wenn die PGN-Datei nicht geschrieben werden kann.
+     */
+    public static long run(int games, int plies, Path archive, PrintStream out) throws IOException {
+        try (GameSessionManager manager = new GameSessionManager()) {
+            out.println(manager.usesVirtualThreads() ? "Virtuelle Threads"
+                    : "Fester Thread-Pool mit " + Runtime.getRuntime().availableProcessors() + " Threads (virtuelle Threads erst ab Java 21)");
+            out.println("Speicher je Partie: " + manager.measureBytesPerGame(Math.min(games, DEFAULT_SAMPLES))
+                    + " Bytes, Partien je GB: " + manager.getGamesPerGigabyte());
+            long[] ids = new long[games];
+            for (int i = 0; i < games; i++) {
+                ids[i] = manager.createGame();
+            }
+            long heap = usedMemory();
+            out.printf("%d Partien angelegt, belegter Heap: %d MB%n", games, heap >> 20);
+
+            long start = System.nanoTime();
+            CompletableFuture<?>[] pending = new CompletableFuture<?>[games];
+            for (int ply = 0; ply < plies; ply++) {
+                for (int i = 0; i < games; i++) {
+                    pending[i] = manager.submit(ids[i], manager::playAnyMove);
+                }
+                CompletableFuture.allOf(pending).join();
+            }
+            long nanos = System.nanoTime() - start;
+
+            out.println(manager.describe());
+            out.printf("Zeit: %d ms, Züge/s: %d%n", nanos / 1_000_000,
+                    manager.getMoves() * 1_000_000_000L / Math.max(1, nanos));
+
+            if (archive != null) {
+                try (PgnWriter writer = PgnWriter.open(archive, false)) {
+                    writer.setEvent("Lasttest", "?", "?");
+                    start = System.nanoTime();
+                    for (int i = 0; i < games; i++) {
+                        pending[i] = manager.archive(ids[i], writer, "Weiß " + ids[i], "Schwarz " + ids[i]);
+                    }
+                    CompletableFuture.allOf(pending).join();
+                    writer.flush();
+                    nanos = System.nanoTime() - start;
+                    out.printf("%d Partien archiviert in %d ms, Partien/s: %d%n", writer.getGames(), nanos / 1_000_000,
+                            writer.getGames() * 1_000_000_000L / Math.max(1, nanos));
+                }
+            }
+            return manager.getMoves();
+        }
+    }
+
+    /**
+     * Spielt im Lasttest einen legalen Zug, solange die Partie läuft.
+     */
+    private Status playAnyMove(Board board) {
+        Status status = status(board);
+        if (status != Status.ONGOING) {
+            return status;
+        }
+        int[] buffer = new int[Move.MAX_MOVES];
+        int count = MoveGenerator.generateMoves(board, buffer);
+        board.playMove(buffer[(int) Long.remainderUnsigned(board.hash(), count)]);
+        moves.incrementAndGet();
+        return Status.ONGOING;
+    }
+}
@@ -2,8 +2,6 @@
  * Diese Klasse repräsentiert einen König in einem Schachspiel. Sie erbt von der Klasse Piece und
  * implementiert die Bewegungsregeln und Überprüfungen für einen König.
  */
-import java.util.NoSuchElementException;
-
 public class King extends Piece {
     /**
      * Konstruktor für einen König.
@@ -28,70 +26,25 @@ public class King extends Piece {
     @Override
     public Boolean validateMove(Piece[][] board, int fromCol, int fromRow, int toCol, int toRow) {
         if (board[toRow][toCol] == null || board[toRow][toCol].getColor() != board[fromRow][fromCol].getColor()) {
-            Piece[][] cpboard = board;
-
             // König-Zug ein Feld in eine beliebeige Richtung
             int rowDiff = Math.abs(toRow - fromRow);
             int colDiff = Math.abs(toCol - fromCol);
 
-            if (rowDiff > 1 && colDiff > 1) {
-                if (fromRow == toRow && hasMoved == 0) {
-                    int a = Castling(board, fromCol, fromRow, toCol, toRow);
-                    // Durchführen des Zugs
-                    if (a == 0) {
-                        return false;
-                    }
-                    if (a == 1) {
-                        board[fromRow][toCol - 1] = new Rook(color);
-                        board[fromRow][toCol] = this;
-                        board[fromRow][7] = null;
-                    }
-                    if (a == 2) {
-                        board[fromRow][toCol + 1] = new Rook(color);
-                        board[fromRow][toCol] = this;
-                        board[fromRow][7] = null;
-                    }
-                    hasMoved++;
-                    return true;
-                }
-                return false;
-            }
-            // Checkt ob das Feld bedroht ist; Funktioniert aktuell nicht für Bauern
-            for (int row = 0; row < 8; row++) {
-                for (int col = 0; col < 8; col++) {
-                    Piece piece = board[row][col];
-                    if (piece != null && !piece.getColor().equals(color) && !(piece instanceof King)) {
-                        try {
-                            if (piece.validateMove(cpboard, col, row, toCol, toRow)) {
-                                return false; // das Feld ist bedroht
-                            }
-                        } catch (NoSuchElementException e) {
-                            // Bauern Promotion Exception ignorieren
-                        }
-                    }
-                }
+            if (rowDiff == 0 && colDiff == 2) {
+                // Rochade; den Turm setzt Board.movePiece
+                return hasMoved == 0 && Castling(board, fromCol, fromRow, toCol, toRow) != 0;
             }
-            // Check ob gegnerische König in der Nähe
-            for (int row = 0; row < 8; row++) {
-                for (int col = 0; col < 8; col++) {
-                    Piece piece = board[row][col];
-                    if (piece instanceof King && !piece.getColor().equals(color)) {
-                        int kingRow = row;
-                        int kingCol = col;
-                        if (Math.abs(toRow - kingRow) <= 1 && Math.abs(toCol - kingCol) <= 1) {
-                            return false; // Könige sind zu nah aneinander
-                        }
-                    }
-                }
+            if (rowDiff > 1 || colDiff > 1) {
+                return false;
             }
-            hasMoved++;
-            return true;
+            // Checkt ob das Feld bedroht ist, auch durch Bauern und den gegnerischen König
+            return !isThreatened(board, fromCol, fromRow, toCol, toRow);
         }
         return false;
     }
 
     /**
-     * Überprüft, ob die Rochade für den König gültig ist und führt sie gegebenenfalls aus.
+     * Überprüft, ob die Rochade für den König gültig ist.
      *
      * @param board    Das aktuelle Spielbrett.
      * @param fromCol  Die Spalte, aus der der König gezogen werden soll.
@@ -114,15 +67,15 @@ public class King extends Piece {
                 }
             }
 
-            // Checkt ob der König durch ein Feld ziehen musss bei dem er im Schach wäre
-            for (int col = fromCol + 1; col <= toCol; col++) {
+            // Checkt ob der König im Schach steht oder durch ein Feld ziehen musss bei dem er im Schach wäre
+            for (int col = fromCol; col <= toCol; col++) {
                 if (isKingInCheck(board, col, fromRow)) {
                     return 0;
                 }
             }
             return 1;
         } else { // Rocharde auf der Damenseite
-            if (board[fromRow][7] == null || board[fromRow][7].getHasMoved() != 0) {
+            if (board[fromRow][0] == null || board[fromRow][0].getHasMoved() != 0) {
                 return 0;
             }
 
@@ -132,8 +85,8 @@ public class King extends Piece {
                     return 0;
                 }
             }
-            // Checkt ob der König durch ein Feld ziehen musss bei dem er im Schach wäre
-            for (int col = fromCol - 1; col >= toCol; col--) {
+            // Checkt ob der König im Schach steht oder durch ein Feld ziehen musss bei dem er im Schach wäre
+            for (int col = fromCol; col >= toCol; col--) {
                 if (isKingInCheck(board, col, fromRow)) {
                     return 0;
                 }
@@ -152,20 +105,49 @@ public class King extends Piece {
      */
     private boolean isKingInCheck(Piece[][] board, int kingCol, int kingRow) {
         // Check ob König im schach ist
-        Piece[][] cpboard = board;
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = board[row][col];
-                if (piece != null && !piece.getColor().equals(color)) {
-                    try {
-                        if (piece.validateMove(cpboard, col, row, kingCol, kingRow)) {
-                            System.out.println("Schach");
-                            return true; // der König ist im Schach
-                        }
-                    } catch (NoSuchElementException e) {
-                        // Bauern Promotion Exception ignorieren
-                    }
-                }
+        return isThreatened(board, -1, -1, kingCol, kingRow);
+    }
+
+    /**
+     * Überprüft mit den Angriffstabellen, ob ein Feld von einer gegnerischen Figur angegriffen wird.
+     * Statt alle Figuren durchzuprobieren, werden nur die Felder angeschaut, von denen aus ein Angriff möglich ist.
+     *
+     * @param board   Das aktuelle Spielbrett.
+     * @param fromCol Die Spalte, auf der der König steht, oder -1.
+     * @param fromRow Die Reihe, auf der der König steht, oder -1.
+     * @param col     Die Spalte des Feldes.
+     * @param row     Die Reihe des Feldes.
+     * @return true, wenn das Feld angegriffen wird, andernfalls false.
+     */
+    private boolean isThreatened(Piece[][] board, int fromCol, int fromRow, int col, int row) {
+        long occupied = 0L;
+        for (int square = 0; square < 64; square++) {
+            if (board[square / 8][square % 8] != null) {
+                occupied |= 1L << square;
+            }
+        }
+        // Der König selbst verdeckt keinen Strahl, der auf sein Zielfeld zeigt
+        if (fromRow >= 0) {
+            occupied &= ~(1L << Board.square(fromRow, fromCol));
+        }
+        int square = Board.square(row, col);
+        return hasEnemy(board, Attacks.pawn(Board.colorIndex(color), square), Pawn.class, Pawn.class)
+            || hasEnemy(board, Attacks.knight(square), Knight.class, Knight.class)
+            || hasEnemy(board, Attacks.king(square), King.class, King.class)
+            || hasEnemy(board, Attacks.bishop(square, occupied), Bishop.class, Queen.class)
+            || hasEnemy(board, Attacks.rook(square, occupied), Rook.class, Queen.class);
+    }
+
+    /**
+     * Überprüft, ob auf einem der Felder eine gegnerische Figur einer der beiden Arten steht.
+     */
+    private boolean hasEnemy(Piece[][] board, long squares, Class<? extends Piece> first, Class<? extends Piece> second) {
+        while (squares != 0) {
+            int square = Long.numberOfTrailingZeros(squares);
+            squares &= squares - 1;
+            Piece piece = board[square / 8][square % 8];
+            if ((first.isInstance(piece) || second.isInstance(piece)) && !piece.getColor().equals(color)) {
+                return true;
             }
         }
         return false;
@@ -1,13 +1,15 @@
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.Scanner;
+import java.util.Set;
 
 /**
  * Die Hauptklasse des Schachspiels.
  */
 public class Main {
-    /**
-     * Der aktuelle Zug. 0 für Weiß, 1 für Schwarz.
-     */
-    static int currentTurn = 0; // 0 für weiß, 1 für schwarz
     /**
      * Das Schachbrett.
      */
@@ -16,6 +18,22 @@ public class Main {
      * Der Scanner für Benutzereingaben.
      */
     private static Scanner scanner;
+    /**
+     * Der Computergegner oder null, wenn zwei Menschen spielen.
+     */
+    private static Engine engine;
+    /**
+     * Die Farbe des Computers (0 für Weiß, 1 für Schwarz).
+     */
+    private static int computerColor = 1;
+    /**
+     * Die Restzeit des Computers in Millisekunden oder -1, wenn ohne Schachuhr gespielt wird.
+     */
+    private static long computerClock = -1;
+    /**
+     * Das Inkrement je Zug in Millisekunden.
+     */
+    private static long clockIncrement;
 
     /**
      * Die Hauptmethode des Programms.
@@ -24,14 +42,48 @@ public class Main {
      */
     public static void main(String[] args) {
         scanner = new Scanner(System.in);
-        System.out.println("Willkommen zu Schach!");
-        System.out.println("Möchtest du im Befehlszeilen-Modus spielen? Dann tippe: \"CLI\"\nMöchtest du auf einer Graphischen Oberfläche spielen? Dann tippe: \"GUI\"");
-        String choice = scanner.nextLine().toUpperCase();
-
-        if (choice.equals("CLI")) {
-            playInCLI();
-        } else if (choice.equals("GUI")) {
-            playInGUI();
+        String line;
+        if (args.length > 0) {
+            // Modus direkt von der Kommandozeile, z.B. "java Main perft 5"
+            line = String.join(" ", args);
+        } else {
+            System.out.println("Willkommen zu Schach!");
+            System.out.println("Möchtest du im Befehlszeilen-Modus spielen? Dann tippe: \"CLI\"\nMöchtest du auf einer Graphischen Oberfläche spielen? Dann tippe: \"GUI\"");
+            System.out.println("Gegen den Computer spielen: \"CLI computer [white|black] [depth=<N>] [nodes=<N>] [time=<ms>] [clock=<ms> [inc=<ms>]] [threads=<N>]\" (mit deiner Farbe, ebenso mit GUI)");
+            System.out.println("Zum Zählen der Züge tippe: \"perft <Tiefe> [FEN] [hash=<MB>] [threads=<N>] [compare]\"");
+            System.out.println("Zum Messen der Suche mit mehreren Threads tippe: \"smp <Tiefe> [FEN] [hash=<MB>] [threads=<N>] [nmp|lmr|rfp|lmp=off]\"");
+            System.out.println("Für den Such-Benchmark tippe: \"bench [depth=<N>] [hash=<MB>] [json=<Datei>]\"");
+            System.out.println("Für den Lasttest mit vielen Partien tippe: \"sessions [games=<N>] [plies=<N>] [pgn=<Datei>]\"");
+            System.out.println("Für Schach-Oberflächen mit dem UCI-Protokoll tippe: \"uci\"");
+            System.out.println("Zum Einlesen einer PGN-Datenbank tippe: \"pgn <Datei>\"");
+            line = scanner.nextLine();
+        }
+        String[] tokens = line.trim().split("\\s+");
+
+        String mode = tokens[0].toUpperCase();
+
+        if (mode.equals("CLI") || mode.equals("GUI")) {
+            if (!readComputerOptions(tokens)) {
+                return;
+            }
+            if (mode.equals("CLI")) {
+                playInCLI();
+            } else {
+                playInGUI();
+            }
+        } else if (mode.equals("PERFT")) {
+            runPerft(tokens);
+        } else if (mode.equals("SMP")) {
+            runScaling(tokens);
+        } else if (mode.equals("BENCH")) {
+            runBench(tokens);
+        } else if (mode.equals("SESSIONS")) {
+            runSessions(tokens);
+        } else if (mode.equals("PGN")) {
+            runPgn(line.trim().substring(3).trim());
+        } else if (mode.equals("UCI")) {
+            // Interaktiv gestartet war "uci" schon der erste Befehl der Oberfläche
+            new Uci(scanner, System.out).run(args.length == 0 ? line : null);
         } else {
             System.out.println("Ungültige Auswahl. Verlassen des Spiels…");
         }
@@ -42,16 +94,53 @@ public class Main {
      */
     private static void playInCLI() {
         board = new Board();
+        try {
+            playCLIGame();
+        } finally {
+            if (engine != null) {
+                System.out.println(engine.getTimeManager().describe());
+            }
+        }
+    }
+
+    /**
+     * Die Spielschleife im Befehlszeilen-Modus.
+     */
+    private static void playCLIGame() {
         while (true) {
-            System.out.println((currentTurn == 0 ? "Weiss" : "Schwarz") + " ist dran.");
+            int currentTurn = board.getSideToMove();
+            System.out.println((currentTurn == Board.WHITE ? "Weiss" : "Schwarz") + " ist dran.");
             board.printBoard();
 
-            System.out.print("Gib deinen Zug ein (Bsp.: \"e2e4\"): ");
+            if (engine != null && currentTurn == computerColor) {
+                playComputerMove();
+                if (isGameOver()) {
+                    break;
+                }
+                continue;
+            }
+
+            System.out.print("Gib deinen Zug ein (Bsp.: \"e2e4\", \"fen\" oder \"pgn\" für die Partie): ");
             String move = scanner.nextLine();
 
             if (move.equalsIgnoreCase("exit")) {
                 break;
             }
+            if (move.equalsIgnoreCase("fen")) {
+                System.out.println(board.toFen());
+                continue;
+            }
+            if (move.equalsIgnoreCase("pgn")) {
+                try {
+                    // System.out nicht schließen, nur den Puffer leeren
+                    PgnWriter writer = new PgnWriter(Channels.newChannel(System.out));
+                    writer.writeGame(board, null, "?", "?", null);
+                    writer.flush();
+                } catch (IOException e) {
+                    System.out.println(e.getMessage());
+                }
+                continue;
+            }
 
             try {
                 int fromCol = move.charAt(0) - 97;
@@ -59,39 +148,324 @@ public class Main {
                 int toCol = move.charAt(2) - 97;
                 int toRow = move.charAt(3) - 49;
 
-                String playerColor = currentTurn == 0 ? "white" : "black";
-                board.movePiece(fromCol, fromRow, toCol, toRow, playerColor);
-                currentTurn = 1 - currentTurn;
+                String playerColor = Board.colorName(currentTurn);
+                int promotion = Board.QUEEN;
+                if (board.getPiece(fromRow, fromCol) instanceof Pawn && (toRow == 0 || toRow == 7)) {
+                    promotion = readPromotion(move.length() > 4 ? move.substring(4) : "");
+                }
+                board.movePiece(fromCol, fromRow, toCol, toRow, playerColor, promotion);
             } catch (Exception e) {
                 System.out.println(e.getMessage());
             }
             
-            if (board.isCheckmate(currentTurn == 0 ? "black" : "white")) {
-                System.out.println("Checkmate! " + (currentTurn == 0 ? "White" : "Black") + " wins!");
-                break;
-            } else if (board.isStalemate()) {
-                System.out.println("Stalemate!");
+            if (isGameOver()) {
                 break;
             }
-            
         }
     }
 
     /**
-     * Spielt das Schachspiel im GUI-Modus.
+     * Überprüft nach einem Zug, ob die Partie durch Matt oder Patt beendet ist, und gibt das Ergebnis aus.
+     *
+     * @return True, wenn die Partie beendet ist.
      */
-    private static void playInGUI() {
-        board = new Board();
-        Table table = new Table(board);
-        table.boardPanel.addMouseListener(new BoardPanelMouseListener(table.boardPanel));
+    private static boolean isGameOver() {
+        // Matt ist die Seite, die jetzt am Zug ist
+        int currentTurn = board.getSideToMove();
+        if (board.isCheckmate(Board.colorName(currentTurn))) {
+            board.printBoard();
+            System.out.println("Checkmate! " + (currentTurn == Board.WHITE ? "Black" : "White") + " wins!");
+            return true;
+        } else if (board.isStalemate()) {
+            board.printBoard();
+            System.out.println("Stalemate!");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Lässt den Computer einen Zug suchen und ausführen.
+     */
+    private static void playComputerMove() {
+        System.out.println("Der Computer denkt nach...");
+        if (computerClock >= 0) {
+            engine.setClock(computerClock, clockIncrement, 0);
+        }
+        long start = System.nanoTime();
+        int move = engine.search(board);
+        long used = (System.nanoTime() - start) / 1_000_000;
+        Engine.Info info = engine.getLastInfo();
+        board.playMove(move);
+        System.out.println("Der Computer spielt " + Move.toString(move) + " (" + info + ")");
+        if (computerClock >= 0) {
+            computerClock = Math.max(0, computerClock - used) + clockIncrement;
+            System.out.println("Restzeit des Computers: " + computerClock + " ms");
+        }
+    }
+
+    /**
+     * Liest die Optionen für das Spiel gegen den Computer, z.B. "CLI computer black time=2000".
+     * Ohne "computer" spielen zwei Menschen gegeneinander.
+     *
+     * @param tokens Die Eingabe.
+     * @return False, wenn die Optionen ungültig sind.
+     */
+    private static boolean readComputerOptions(String[] tokens) {
+        if (tokens.length == 1) {
+            return true;
+        }
+        try {
+            if (!tokens[1].equalsIgnoreCase("computer")) {
+                throw new IllegalArgumentException("Unbekannte Option: " + tokens[1]);
+            }
+            engine = new Engine(16);
+            engine.setMoveTime(1000);
+            for (int i = 2; i < tokens.length; i++) {
+                String option = tokens[i].toLowerCase();
+                if (option.equals("white")) {
+                    computerColor = 1; // Der Mensch spielt Weiß
+                } else if (option.equals("black")) {
+                    computerColor = 0;
+                } else if (option.startsWith("depth=")) {
+                    engine.setDepth(Integer.parseInt(option.substring(6)));
+                    engine.setMoveTime(0);
+                } else if (option.startsWith("nodes=")) {
+                    engine.setNodes(Long.parseLong(option.substring(6)));
+                    engine.setMoveTime(0);
+                } else if (option.startsWith("time=")) {
+                    engine.setMoveTime(Long.parseLong(option.substring(5)));
+                } else if (option.startsWith("threads=")) {
+                    engine.setThreads(Integer.parseInt(option.substring(8)));
+                } else if (option.startsWith("clock=")) {
+                    computerClock = Long.parseLong(option.substring(6));
+                } else if (option.startsWith("inc=")) {
+                    clockIncrement = Long.parseLong(option.substring(4));
+                } else {
+                    throw new IllegalArgumentException("Unbekannte Option: " + tokens[i]);
+                }
+            }
+            return true;
+        } catch (IllegalArgumentException e) {
+            System.out.println("Aufruf: CLI|GUI computer [white|black] [depth=<N>] [nodes=<N>] [time=<ms>] [clock=<ms> [inc=<ms>]] [threads=<N>] (" + e.getMessage() + ")");
+            return false;
+        }
+    }
+
+    /**
+     * Führt den Perft-Modus aus.
+     *
+     * @param tokens Die Eingabe: "perft", die Tiefe, optional eine FEN und optional "hash=&lt;MB&gt;",
+     *               "threads=&lt;N&gt;" und "compare".
+     */
+    private static void runPerft(String[] tokens) {
+        try {
+            int depth = Integer.parseInt(tokens[1]);
+            int megabytes = 0;
+            int threads = Runtime.getRuntime().availableProcessors();
+            boolean compare = false;
+            int end = tokens.length;
+            while (end > 2) {
+                String option = tokens[end - 1].toLowerCase();
+                if (option.startsWith("hash=")) {
+                    megabytes = Integer.parseInt(option.substring(5));
+                } else if (option.startsWith("threads=")) {
+                    threads = Integer.parseInt(option.substring(8));
+                } else if (option.equals("compare")) {
+                    compare = true;
+                } else {
+                    break;
+                }
+                end--;
+            }
+            String fen = String.join(" ", Arrays.copyOfRange(tokens, 2, end));
+            if (depth < 1 || depth > Perft.MAX_DEPTH) {
+                throw new IllegalArgumentException("Die Tiefe muss zwischen 1 und " + Perft.MAX_DEPTH + " liegen.");
+            }
+            Perft.run(fen.isEmpty() ? new Board() : new Board(fen), depth, megabytes, Math.max(1, threads), compare, System.out);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.out.println("Aufruf: perft <Tiefe> [FEN] [hash=<MB>] [threads=<N>] [compare] (" + e.getMessage() + ")");
+        }
+    }
+
+    /**
+     * Misst die Skalierung der Suche von 1 bis N Threads.
+     *
+     * @param tokens Die Eingabe: "smp", die Tiefe, optional eine FEN und optional "hash=&lt;MB&gt;", "threads=&lt;N&gt;"
+     *               und "nmp=off", "lmr=off", "rfp=off" bzw. "lmp=off" zum Abschalten der selektiven Verfahren.
+     */
+    private static void runScaling(String[] tokens) {
+        try {
+            int depth = Integer.parseInt(tokens[1]);
+            int megabytes = 64;
+            int threads = Runtime.getRuntime().availableProcessors();
+            Set<Engine.Pruning> pruning = EnumSet.allOf(Engine.Pruning.class);
+            int end = tokens.length;
+            while (end > 2) {
+                String option = tokens[end - 1].toLowerCase();
+                Engine.Pruning technique = findPruning(option);
+                if (option.startsWith("hash=")) {
+                    megabytes = Integer.parseInt(option.substring(5));
+                } else if (option.startsWith("threads=")) {
+                    threads = Integer.parseInt(option.substring(8));
+                } else if (technique != null) {
+                    if (option.endsWith("=off")) {
+                        pruning.remove(technique);
+                    }
+                } else {
+                    break;
+                }
+                end--;
+            }
+            String fen = String.join(" ", Arrays.copyOfRange(tokens, 2, end));
+            if (depth < 1 || depth >= Engine.MAX_PLY) {
+                throw new IllegalArgumentException("Die Tiefe muss zwischen 1 und " + (Engine.MAX_PLY - 1) + " liegen.");
+            }
+            Engine.measureScaling(fen.isEmpty() ? new Board() : new Board(fen), depth, Math.max(1, threads), megabytes, pruning, System.out);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.out.println("Aufruf: smp <Tiefe> [FEN] [hash=<MB>] [threads=<N>] [nmp|lmr|rfp|lmp=off] (" + e.getMessage() + ")");
+        }
+    }
+
+    /**
+     * Führt den Such-Benchmark aus (siehe {@link Bench}).
+     *
+     * @param tokens Die Eingabe: "bench", optional "depth=&lt;N&gt;", "hash=&lt;MB&gt;" und "json=&lt;Datei&gt;".
+     */
+    private static void runBench(String[] tokens) {
+        try {
+            int depth = Bench.DEFAULT_DEPTH;
+            int megabytes = 16;
+            Path json = null;
+            for (int i = 1; i < tokens.length; i++) {
+                String option = tokens[i];
+                if (option.toLowerCase().startsWith("depth=")) {
+                    depth = Integer.parseInt(option.substring(6));
+                } else if (option.toLowerCase().startsWith("hash=")) {
+                    megabytes = Integer.parseInt(option.substring(5));
+                } else if (option.toLowerCase().startsWith("json=")) {
+                    json = Path.of(option.substring(5));
+                } else {
+                    throw new IllegalArgumentException("Unbekannte Option " + option);
+                }
+            }
+            if (depth < 1 || depth >= Engine.MAX_PLY) {
+                throw new IllegalArgumentException("Die Tiefe muss zwischen 1 und " + (Engine.MAX_PLY - 1) + " liegen.");
+            }
+            Bench.run(depth, megabytes, json, System.out);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Aufruf: bench [depth=<N>] [hash=<MB>] [json=<Datei>] (" + e.getMessage() + ")");
+        } catch (IOException e) {
+            System.out.println("Die Ergebnisse konnten nicht geschrieben werden: " + e.getMessage());
+        }
     }
 
     /**
-     * Gibt den aktuellen Zug zurück.
+     * Führt den Lasttest mit vielen gleichzeitigen Partien aus (siehe {@link GameSessionManager}).
      *
-     * @return Der aktuelle Zug.
+     * @param tokens Die Eingabe: "sessions", optional "games=&lt;N&gt;", "plies=&lt;N&gt;" und "pgn=&lt;Datei&gt;".
      */
-    public static int getCurrentTurn() {
-        return currentTurn;
+    private static void runSessions(String[] tokens) {
+        try {
+            int games = 10_000;
+            int plies = 40;
+            Path archive = null;
+            for (int i = 1; i < tokens.length; i++) {
+                String option = tokens[i].toLowerCase();
+                if (option.startsWith("games=")) {
+                    games = Integer.parseInt(option.substring(6));
+                } else if (option.startsWith("plies=")) {
+                    plies = Integer.parseInt(option.substring(6));
+                } else if (option.startsWith("pgn=")) {
+                    archive = Path.of(tokens[i].substring(4));
+                } else {
+                    throw new IllegalArgumentException("Unbekannte Option " + tokens[i]);
+                }
+            }
+            if (games < 1 || plies < 0) {
+                throw new IllegalArgumentException("Mindestens eine Partie und keine negative Zuganzahl.");
+            }
+            GameSessionManager.run(games, plies, archive, System.out);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Aufruf: sessions [games=<N>] [plies=<N>] [pgn=<Datei>] (" + e.getMessage() + ")");
+        } catch (IOException e) {
+            System.out.println("Die Partien konnten nicht geschrieben werden: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Liest alle Partien einer PGN-Datei ein und gibt Anzahl und Geschwindigkeit aus (siehe {@link PgnReader}).
+     *
+     * @param file Die Datei, darf Leerzeichen enthalten.
+     */
+    private static void runPgn(String file) {
+        if (file.isEmpty()) {
+            System.out.println("Aufruf: pgn <Datei>");
+            return;
+        }
+        try {
+            PgnReader reader = new PgnReader(Path.of(file));
+            long start = System.nanoTime();
+            reader.read(game -> true);
+            long nanos = Math.max(1, System.nanoTime() - start);
+            System.out.println("Partien: " + reader.getGames() + ", Züge: " + reader.getMoves()
+                    + ", übersprungen: " + reader.getErrors());
+            System.out.printf("Zeit: %d ms, Partien/min: %d%n", nanos / 1_000_000,
+                    reader.getGames() * 60_000_000_000L / nanos);
+        } catch (IOException e) {
+            System.out.println("Die Datei konnte nicht gelesen werden: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sucht das selektive Verfahren zu einer Option wie "lmr=off" oder "nmp=on".
+     *
+     * @return Das Verfahren oder null, wenn die Option keines schaltet.
+     */
+    private static Engine.Pruning findPruning(String option) {
+        for (Engine.Pruning technique : Engine.Pruning.values()) {
+            if (option.equals(technique.getKey() + "=off") || option.equals(technique.getKey() + "=on")) {
+                return technique;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Liest die Figur für die Bauernumwandlung ein, falls sie nicht schon im Zug angegeben wurde (Bsp.: "e7e8q").
+     *
+     * @param choice Die bereits eingegebene Figur oder ein leerer String.
+     * @return Der Figurentyp der Umwandlung.
+     */
+    private static int readPromotion(String choice) {
+        if (choice.isEmpty()) {
+            System.out.println("Wähle eine Figur für die Bauern-Promotion aus (Q, R, B, N): ");
+            choice = scanner.nextLine();
+        }
+        switch (choice.toUpperCase()) {
+            case "Q":
+                return Board.QUEEN;
+            case "R":
+                return Board.ROOK;
+            case "B":
+                return Board.BISHOP;
+            case "N":
+                return Board.KNIGHT;
+            default:
+                System.out.println("Ungültige Figur. Der Bauer wird zur Königin promoviert.");
+                return Board.QUEEN;
+        }
+    }
+
+    /**
+     * Spielt das Schachspiel im GUI-Modus.
+     */
+    private static void playInGUI() {
+        board = new Board();
+        Table table = new Table(board);
+        if (engine != null) {
+            table.setComputer(engine, computerColor);
+        }
+        table.boardPanel.addMouseListener(new BoardPanelMouseListener(table.boardPanel));
     }
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+/**
+ * Hilfsfunktionen für Züge, die in einem einzigen {@code int} gespeichert werden.
+ * So können Züge ohne Objekte in vorab angelegte Arrays geschrieben werden.
+ *
+ * <pre>
+ * Bits  0- 5: Ausgangsfeld
+ * Bits  6-11: Zielfeld
+ * Bits 12-14: Figurentyp der ziehenden Figur
+ * Bits 15-17: Figurentyp der geschlagenen Figur ({@link Board#NONE}, wenn nichts geschlagen wird)
+ * Bits 18-20: Figurentyp der Umwandlung (0, wenn keine Umwandlung)
+ * Bits 21-23: Flags ({@link #DOUBLE_PUSH}, {@link #EN_PASSANT}, {@link #CASTLING})
+ * </pre>
+ */
+public final class Move {
+    /**
+     * Kein Zug.
+     */
+    public static final int NONE = 0;
+
+    /**
+     * Bauer zieht zwei Felder vor.
+     */
+    public static final int DOUBLE_PUSH = 1;
+    /**
+     * Bauer schlägt en passant.
+     */
+    public static final int EN_PASSANT = 2;
+    /**
+     * König rochiert.
+     */
+    public static final int CASTLING = 4;
+
+    /**
+     * Mehr legale Züge gibt es in keiner Stellung (218), daher reicht ein Puffer dieser Größe.
+     */
+    public static final int MAX_MOVES = 256;
+
+    private Move() {
+        // Nur statische Methoden
+    }
+
+    /**
+     * Baut einen Zug zusammen.
+     *
+     * @param from      Das Ausgangsfeld.
+     * @param to        Das Zielfeld.
+     * @param piece     Der Typ der ziehenden Figur.
+     * @param captured  Der Typ der geschlagenen Figur oder {@link Board#NONE}.
+     * @param promotion Der Typ der Umwandlungsfigur oder 0.
+     * @param flags     Die Flags des Zuges.
+     * @return Der kodierte Zug.
+     */
+    public static int encode(int from, int to, int piece, int captured, int promotion, int flags) {
+        return from | to << 6 | piece << 12 | captured << 15 | promotion << 18 | flags << 21;
+    }
+
+    /**
+     * Gibt das Ausgangsfeld zurück.
+     */
+    public static int from(int move) {
+        return move & 0x3f;
+    }
+
+    /**
+     * Gibt das Zielfeld zurück.
+     */
+    public static int to(int move) {
+        return (move >>> 6) & 0x3f;
+    }
+
+    /**
+     * Gibt den Typ der ziehenden Figur zurück.
+     */
+    public static int piece(int move) {
+        return (move >>> 12) & 7;
+    }
+
+    /**
+     * Gibt den Typ der geschlagenen Figur zurück ({@link Board#NONE}, wenn nichts geschlagen wird).
+     */
+    public static int captured(int move) {
+        return (move >>> 15) & 7;
+    }
+
+    /**
+     * Gibt den Typ der Umwandlungsfigur zurück (0, wenn keine Umwandlung).
+     */
+    public static int promotion(int move) {
+        return (move >>> 18) & 7;
+    }
+
+    /**
+     * Gibt die Flags des Zuges zurück.
+     */
+    public static int flags(int move) {
+        return (move >>> 21) & 7;
+    }
+
+    /**
+     * Gibt an, ob der Zug eine Figur schlägt.
+     */
+    public static boolean isCapture(int move) {
+        return captured(move) != Board.NONE;
+    }
+
+    /**
+     * Gibt an, ob der Zug einen Bauern umwandelt.
+     */
+    public static boolean isPromotion(int move) {
+        return promotion(move) != 0;
+    }
+
+    /**
+     * Gibt den Zug in Koordinatenschreibweise zurück (z.B. "e2e4" oder "e7e8q").
+     *
+     * @param move Der Zug.
+     * @return Der Zug als Text.
+     */
+    public static String toString(int move) {
+        if (move == NONE) {
+            return "0000";
+        }
+        String text = squareName(from(move)) + squareName(to(move));
+        if (isPromotion(move)) {
+            text += "pnbrqk".charAt(promotion(move));
+        }
+        return text;
+    }
+
+    /**
+     * Gibt den Namen eines Feldes zurück (z.B. "e4").
+     *
+     * @param square Das Feld.
+     * @return Der Name des Feldes.
+     */
+    public static String squareName(int square) {
+        return String.valueOf((char) ('a' + square % 8)) + (char) ('1' + square / 8);
+    }
+}
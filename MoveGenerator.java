@@ -0,0 +1,311 @@
+/**
+ * Erzeugt alle legalen Züge einer Stellung als kodierte {@code int}-Züge (siehe {@link Move}).
+ * Die Züge werden in ein vom Aufrufer angelegtes Array geschrieben, dabei wird nichts allokiert.
+ * Schachgebote und Fesselungen werden direkt auf den Bitboards berücksichtigt,
+ * sodass kein Zug probeweise ausgeführt werden muss.
+ */
+public final class MoveGenerator {
+    /**
+     * Die Reihenfolge, in der Umwandlungszüge erzeugt werden.
+     */
+    private static final int[] PROMOTIONS = {Board.QUEEN, Board.ROOK, Board.BISHOP, Board.KNIGHT};
+
+    private MoveGenerator() {
+        // Nur statische Methoden
+    }
+
+    /**
+     * Schreibt alle legalen Züge der Seite am Zug in das übergebene Array.
+     *
+     * @param board Das Schachbrett.
+     * @param moves Der Puffer für die Züge, mindestens {@link Move#MAX_MOVES} groß.
+     * @return Die Anzahl der erzeugten Züge.
+     */
+    public static int generateMoves(Board board, int[] moves) {
+        int us = board.getSideToMove();
+        int them = 1 - us;
+        long own = board.getOccupancy(us);
+        long occupied = board.getOccupied();
+        int kingSquare = Long.numberOfTrailingZeros(board.getBitboard(us, Board.KING));
+        int count = 0;
+
+        // Königszüge: der König darf auf kein angegriffenes Feld ziehen, auch nicht entlang des Schachstrahls
+        long withoutKing = occupied ^ 1L << kingSquare;
+        long targets = Attacks.king(kingSquare) & ~own;
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (board.attackersTo(to, them, withoutKing) == 0) {
+                moves[count++] = Move.encode(kingSquare, to, Board.KING, board.getPieceType(to), 0, 0);
+            }
+        }
+
+        long checkers = board.attackersTo(kingSquare, them, occupied);
+        if (Long.bitCount(checkers) > 1) {
+            return count; // Doppelschach, nur der König darf ziehen
+        }
+        // Im Schach muss der Schachgeber geschlagen oder der Strahl verstellt werden
+        long checkMask = checkers == 0 ? -1L : checkers | Attacks.between(kingSquare, Long.numberOfTrailingZeros(checkers));
+        long pinned = pinned(board, kingSquare, us);
+
+        if (checkers == 0) {
+            count = generateCastling(board, moves, count, us, occupied);
+        }
+
+        long movable = ~own & checkMask;
+        for (int type = Board.KNIGHT; type <= Board.QUEEN; type++) {
+            long bitboard = board.getBitboard(us, type);
+            while (bitboard != 0) {
+                int from = Long.numberOfTrailingZeros(bitboard);
+                bitboard &= bitboard - 1;
+                targets = attacks(type, from, occupied) & movable;
+                if ((pinned & 1L << from) != 0) {
+                    targets &= Attacks.line(kingSquare, from); // Gefesselte Figuren bleiben auf der Fesselungslinie
+                }
+                while (targets != 0) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+                    moves[count++] = Move.encode(from, to, type, board.getPieceType(to), 0, 0);
+                }
+            }
+        }
+
+        return generatePawnMoves(board, moves, count, us, kingSquare, checkMask, pinned);
+    }
+
+    /**
+     * Überprüft, ob eine Farbe mindestens einen legalen Zug hat, und bricht beim ersten gefundenen Zug ab.
+     * Im Schach werden nur Königszüge, das Schlagen des Schachgebers und das Verstellen des Strahls betrachtet.
+     * Es wird nichts allokiert und die Stellung nicht verändert.
+     *
+     * @param board Das Schachbrett.
+     * @param us    Die Farbe ({@link Board#WHITE} oder {@link Board#BLACK}).
+     * @return True, wenn es einen legalen Zug gibt, sonst false.
+     */
+    public static boolean hasLegalMove(Board board, int us) {
+        int them = 1 - us;
+        long own = board.getOccupancy(us);
+        long occupied = board.getOccupied();
+        long king = board.getBitboard(us, Board.KING);
+        if (king == 0) {
+            return false;
+        }
+        int kingSquare = Long.numberOfTrailingZeros(king);
+
+        // Königszüge zuerst: meist sofort ein Treffer, und im Doppelschach die einzige Möglichkeit.
+        // Die Rochade muss nicht geprüft werden: ist sie erlaubt, ist es auch der Königszug auf das Nachbarfeld.
+        long withoutKing = occupied ^ king;
+        long targets = Attacks.king(kingSquare) & ~own;
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (board.attackersTo(to, them, withoutKing) == 0) {
+                return true;
+            }
+        }
+
+        long checkers = board.attackersTo(kingSquare, them, occupied);
+        if (Long.bitCount(checkers) > 1) {
+            return false;
+        }
+        long checkMask = checkers == 0 ? -1L : checkers | Attacks.between(kingSquare, Long.numberOfTrailingZeros(checkers));
+        long pinned = pinned(board, kingSquare, us);
+
+        long movable = ~own & checkMask;
+        for (int type = Board.KNIGHT; type <= Board.QUEEN; type++) {
+            long bitboard = board.getBitboard(us, type);
+            while (bitboard != 0) {
+                int from = Long.numberOfTrailingZeros(bitboard);
+                bitboard &= bitboard - 1;
+                targets = attacks(type, from, occupied) & movable;
+                if ((pinned & 1L << from) != 0) {
+                    targets &= Attacks.line(kingSquare, from);
+                }
+                if (targets != 0) {
+                    return true;
+                }
+            }
+        }
+
+        long enemy = board.getOccupancy(them);
+        int forward = us == Board.WHITE ? 8 : -8;
+        int startRow = us == Board.WHITE ? 1 : 6;
+        // En passant ist nur für die Seite am Zug möglich
+        int enPassantSquare = us == board.getSideToMove() ? board.getEnPassantSquare() : -1;
+        long pawns = board.getBitboard(us, Board.PAWN);
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long allowed = checkMask;
+            if ((pinned & 1L << from) != 0) {
+                allowed &= Attacks.line(kingSquare, from);
+            }
+            int to = from + forward;
+            if ((occupied & 1L << to) == 0) {
+                if ((allowed & 1L << to) != 0) {
+                    return true;
+                }
+                int doubleTo = to + forward;
+                if (from / 8 == startRow && (occupied & 1L << doubleTo) == 0 && (allowed & 1L << doubleTo) != 0) {
+                    return true;
+                }
+            }
+            if ((Attacks.pawn(us, from) & enemy & allowed) != 0) {
+                return true;
+            }
+            if (enPassantSquare >= 0 && (Attacks.pawn(us, from) & 1L << enPassantSquare) != 0
+                    && isLegalEnPassant(board, us, kingSquare, from, enPassantSquare, checkMask)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Erzeugt alle Bauernzüge inklusive Doppelschritt, en passant und Umwandlungen.
+     */
+    private static int generatePawnMoves(Board board, int[] moves, int count, int us, int kingSquare, long checkMask, long pinned) {
+        long occupied = board.getOccupied();
+        long enemy = board.getOccupancy(1 - us);
+        int forward = us == Board.WHITE ? 8 : -8;
+        int startRow = us == Board.WHITE ? 1 : 6;
+        int enPassantSquare = board.getEnPassantSquare();
+
+        long pawns = board.getBitboard(us, Board.PAWN);
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long allowed = checkMask;
+            if ((pinned & 1L << from) != 0) {
+                allowed &= Attacks.line(kingSquare, from);
+            }
+
+            // Züge nach vorne
+            int to = from + forward;
+            if ((occupied & 1L << to) == 0) {
+                if ((allowed & 1L << to) != 0) {
+                    count = addPawnMove(moves, count, from, to, Board.NONE, 0);
+                }
+                int doubleTo = to + forward;
+                if (from / 8 == startRow && (occupied & 1L << doubleTo) == 0 && (allowed & 1L << doubleTo) != 0) {
+                    moves[count++] = Move.encode(from, doubleTo, Board.PAWN, Board.NONE, 0, Move.DOUBLE_PUSH);
+                }
+            }
+
+            // Schlagen
+            long captures = Attacks.pawn(us, from) & enemy & allowed;
+            while (captures != 0) {
+                to = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                count = addPawnMove(moves, count, from, to, board.getPieceType(to), 0);
+            }
+
+            // En passant
+            if (enPassantSquare >= 0 && (Attacks.pawn(us, from) & 1L << enPassantSquare) != 0
+                    && isLegalEnPassant(board, us, kingSquare, from, enPassantSquare, checkMask)) {
+                moves[count++] = Move.encode(from, enPassantSquare, Board.PAWN, Board.PAWN, 0, Move.EN_PASSANT);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Fügt einen Bauernzug hinzu; erreicht der Bauer die letzte Reihe, werden alle vier Umwandlungen erzeugt.
+     */
+    private static int addPawnMove(int[] moves, int count, int from, int to, int captured, int flags) {
+        int row = to / 8;
+        if (row == 0 || row == 7) {
+            for (int promotion : PROMOTIONS) {
+                moves[count++] = Move.encode(from, to, Board.PAWN, captured, promotion, flags);
+            }
+        } else {
+            moves[count++] = Move.encode(from, to, Board.PAWN, captured, 0, flags);
+        }
+        return count;
+    }
+
+    /**
+     * Überprüft, ob ein en-passant-Schlag den eigenen König nicht im Schach lässt.
+     * Da dabei zwei Bauern von derselben Reihe verschwinden, wird die Belegung nach dem Zug direkt geprüft.
+     */
+    private static boolean isLegalEnPassant(Board board, int us, int kingSquare, int from, int to, long checkMask) {
+        int capturedSquare = to - (us == Board.WHITE ? 8 : -8);
+        if ((checkMask & (1L << to | 1L << capturedSquare)) == 0) {
+            return false;
+        }
+        int them = 1 - us;
+        long occupied = board.getOccupied() ^ 1L << from ^ 1L << capturedSquare | 1L << to;
+        long straight = board.getBitboard(them, Board.ROOK) | board.getBitboard(them, Board.QUEEN);
+        long diagonal = board.getBitboard(them, Board.BISHOP) | board.getBitboard(them, Board.QUEEN);
+        return (Attacks.rook(kingSquare, occupied) & straight) == 0
+            && (Attacks.bishop(kingSquare, occupied) & diagonal) == 0;
+    }
+
+    /**
+     * Erzeugt die Rochaden. Der König darf dabei nicht im Schach stehen und über kein angegriffenes Feld ziehen.
+     */
+    private static int generateCastling(Board board, int[] moves, int count, int us, long occupied) {
+        int rights = board.getCastlingRights();
+        int kingSide = us == Board.WHITE ? Board.WHITE_KINGSIDE : Board.BLACK_KINGSIDE;
+        int queenSide = us == Board.WHITE ? Board.WHITE_QUEENSIDE : Board.BLACK_QUEENSIDE;
+        int base = us == Board.WHITE ? 0 : 56;
+        int king = base + 4;
+        long rooks = board.getBitboard(us, Board.ROOK);
+        int them = 1 - us;
+        if ((board.getBitboard(us, Board.KING) & 1L << king) == 0) {
+            return count; // Rochaderecht ohne König auf dem Ausgangsfeld, z.B. aus einer fehlerhaften FEN
+        }
+
+        if ((rights & kingSide) != 0 && (rooks & 1L << (base + 7)) != 0
+                && (occupied & (3L << (base + 5))) == 0
+                && board.attackersTo(base + 5, them, occupied) == 0
+                && board.attackersTo(base + 6, them, occupied) == 0) {
+            moves[count++] = Move.encode(king, base + 6, Board.KING, Board.NONE, 0, Move.CASTLING);
+        }
+        if ((rights & queenSide) != 0 && (rooks & 1L << base) != 0
+                && (occupied & (7L << (base + 1))) == 0
+                && board.attackersTo(base + 3, them, occupied) == 0
+                && board.attackersTo(base + 2, them, occupied) == 0) {
+            moves[count++] = Move.encode(king, base + 2, Board.KING, Board.NONE, 0, Move.CASTLING);
+        }
+        return count;
+    }
+
+    /**
+     * Gibt die Angriffsfelder einer Figur (Springer bis Dame) zurück.
+     */
+    private static long attacks(int type, int square, long occupied) {
+        switch (type) {
+            case Board.KNIGHT:
+                return Attacks.knight(square);
+            case Board.BISHOP:
+                return Attacks.bishop(square, occupied);
+            case Board.ROOK:
+                return Attacks.rook(square, occupied);
+            default:
+                return Attacks.queen(square, occupied);
+        }
+    }
+
+    /**
+     * Gibt die eigenen Figuren zurück, die an den König gefesselt sind.
+     */
+    private static long pinned(Board board, int kingSquare, int us) {
+        int them = 1 - us;
+        long enemy = board.getOccupancy(them);
+        long straight = board.getBitboard(them, Board.ROOK) | board.getBitboard(them, Board.QUEEN);
+        long diagonal = board.getBitboard(them, Board.BISHOP) | board.getBitboard(them, Board.QUEEN);
+        // Strahlen vom König durch die eigenen Figuren hindurch bis zur ersten gegnerischen Figur
+        long snipers = (Attacks.rook(kingSquare, enemy) & straight) | (Attacks.bishop(kingSquare, enemy) & diagonal);
+        long pinned = 0L;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Attacks.between(kingSquare, sniper) & board.getOccupied();
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers;
+            }
+        }
+        return pinned;
+    }
+}
@@ -0,0 +1,274 @@
+/**
+ * Gibt die legalen Züge einer Stellung in der Reihenfolge zurück, in der die Suche sie probieren soll:
+ * <ol>
+ *     <li>den Zug aus der Transpositionstabelle,</li>
+ *     <li>Schlagzüge und Damenumwandlungen nach MVV-LVA (wertvollstes Opfer, billigster Angreifer),</li>
+ *     <li>die beiden Killerzüge und den Gegenzug (Counter-Move) auf den letzten Zug des Gegners,</li>
+ *     <li>die übrigen ruhigen Züge nach der History-Tabelle,</li>
+ *     <li>zuletzt die Schlagzüge, die laut {@link Board#see(int)} Material verlieren.</li>
+ * </ol>
+ * Für die Ruhesuche liefert {@link #initQuiescence} nur die Schlagzüge ohne Materialverlust, im Schach alle Züge.
+ * Sortiert wird erst bei Bedarf: jede Stufe wird beim Erreichen bewertet, und {@link #next()} sucht jeweils
+ * nur den besten verbleibenden Zug (Selection Sort). Bei einem frühen Beta-Schnitt wird der Rest nie sortiert.
+ * <p>
+ * Der {@link MoveGenerator} erzeugt alle legalen Züge auf einmal; die Stufen teilen diese Liste nur auf.
+ * Ein MovePicker je Halbzug wird wiederverwendet, dabei wird nichts allokiert.
+ */
+public class MovePicker {
+    private static final int STAGE_TT = 0;
+    private static final int STAGE_CAPTURES = 1;
+    private static final int STAGE_KILLERS = 2;
+    private static final int STAGE_QUIETS = 3;
+    private static final int STAGE_BAD_CAPTURES = 4;
+    private static final int STAGE_DONE = 5;
+
+    private final int[] moves = new int[Move.MAX_MOVES];
+    private final int[] scores = new int[Move.MAX_MOVES];
+    private final int[] specials = new int[3];
+    /**
+     * Die zurückgestellten Schlagzüge mit negativem Abtausch.
+     */
+    private final int[] badCaptures = new int[Move.MAX_MOVES];
+    private int badCount;
+    private int badIndex;
+
+    private int count;
+    private int stage;
+    /**
+     * Der nächste Index der aktuellen Stufe.
+     */
+    private int index;
+    /**
+     * Schlagzüge liegen in [0, captureEnd), ruhige Züge in [captureEnd, count).
+     */
+    private int captureEnd;
+    private int ttMove;
+    private boolean ttMoveFound;
+    private int special;
+    private int[][] history;
+    private Board board;
+    /**
+     * Gibt nur die Schlagzüge zurück, für die Ruhesuche.
+     */
+    private boolean capturesOnly;
+
+    /**
+     * Bereitet die Züge einer Stellung vor.
+     *
+     * @param board       Die Stellung.
+     * @param ttMove      Der Zug aus der Transpositionstabelle oder {@link Move#NONE}.
+     * @param killer1     Der erste Killerzug des Halbzugs.
+     * @param killer2     Der zweite Killerzug des Halbzugs.
+     * @param counterMove Der Gegenzug auf den letzten Zug oder {@link Move#NONE}.
+     * @param history     Die History der Seite am Zug, indiziert mit Start- und Zielfeld.
+     * @return Die Anzahl der legalen Züge.
+     */
+    public int init(Board board, int ttMove, int killer1, int killer2, int counterMove, int[][] history) {
+        count = MoveGenerator.generateMoves(board, moves);
+        this.board = board;
+        this.ttMove = ttMove;
+        this.history = history;
+        specials[0] = killer1;
+        specials[1] = killer2;
+        specials[2] = counterMove != killer1 && counterMove != killer2 ? counterMove : Move.NONE;
+        special = 0;
+        stage = STAGE_TT;
+        ttMoveFound = false;
+        capturesOnly = false;
+        badCount = 0;
+        badIndex = 0;
+
+        // Schlagzüge nach vorne, ruhige Züge nach hinten
+        captureEnd = 0;
+        for (int i = 0; i < count; i++) {
+            if (isTactical(moves[i])) {
+                int move = moves[i];
+                moves[i] = moves[captureEnd];
+                moves[captureEnd++] = move;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Bereitet die Züge für die Ruhesuche vor: außerhalb des Schachs nur Schlagzüge und Damenumwandlungen
+     * ohne Materialverlust, im Schach alle Züge, damit Mattstellungen erkannt werden.
+     *
+     * @param board   Die Stellung.
+     * @param inCheck Ob die Seite am Zug im Schach steht.
+     * @param history Die History der Seite am Zug.
+     * @return Die Anzahl aller legalen Züge, auch wenn nicht alle zurückgegeben werden.
+     */
+    public int initQuiescence(Board board, boolean inCheck, int[][] history) {
+        init(board, Move.NONE, Move.NONE, Move.NONE, Move.NONE, history);
+        capturesOnly = !inCheck;
+        return count;
+    }
+
+    /**
+     * Gibt den nächsten Zug zurück.
+     *
+     * @return Der Zug oder {@link Move#NONE}, wenn alle Züge zurückgegeben wurden.
+     */
+    @SuppressWarnings("fallthrough") // Die Stufen gehen absichtlich ineinander über
+    public int next() {
+        switch (stage) {
+            case STAGE_TT:
+                stage = STAGE_CAPTURES;
+                index = 0;
+                scoreCaptures();
+                if (ttMove != Move.NONE && contains(ttMove)) {
+                    ttMoveFound = true;
+                    return ttMove;
+                }
+                // fall through
+            case STAGE_CAPTURES:
+                while (index < captureEnd) {
+                    int move = selectBest(index++, captureEnd);
+                    if (isTtMove(move)) {
+                        continue;
+                    }
+                    if (isLosing(move)) {
+                        badCaptures[badCount++] = move;
+                        continue;
+                    }
+                    return move;
+                }
+                if (capturesOnly) {
+                    stage = STAGE_DONE;
+                    return Move.NONE;
+                }
+                stage = STAGE_KILLERS;
+                index = captureEnd;
+                // fall through
+            case STAGE_KILLERS:
+                while (special < specials.length) {
+                    int move = specials[special++];
+                    if (move != Move.NONE && !isTtMove(move) && takeQuiet(move)) {
+                        return move;
+                    }
+                }
+                stage = STAGE_QUIETS;
+                scoreQuiets();
+                // fall through
+            case STAGE_QUIETS:
+                while (index < count) {
+                    int move = selectBest(index++, count);
+                    if (!isTtMove(move)) {
+                        return move;
+                    }
+                }
+                stage = STAGE_BAD_CAPTURES;
+                // fall through
+            case STAGE_BAD_CAPTURES:
+                return nextBadCapture();
+            default:
+                return Move.NONE;
+        }
+    }
+
+    /**
+     * Gibt die Anzahl der legalen Züge zurück.
+     *
+     * @return Die Anzahl.
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Überprüft, ob ein Zug in der Schlagzug-Stufe einsortiert wird: Schlagzüge und Damenumwandlungen.
+     *
+     * @param move Der Zug.
+     * @return True für Schlagzüge und Damenumwandlungen.
+     */
+    public static boolean isTactical(int move) {
+        return Move.isCapture(move) || Move.promotion(move) == Board.QUEEN;
+    }
+
+    private int nextBadCapture() {
+        if (badIndex < badCount) {
+            return badCaptures[badIndex++];
+        }
+        stage = STAGE_DONE;
+        return Move.NONE;
+    }
+
+    /**
+     * Ein Schlagzug verliert Material, wenn der Abtausch negativ ist. Schlägt eine Figur eine mindestens
+     * gleich wertvolle, kann das nicht sein, dann wird der Abtausch gar nicht erst berechnet.
+     */
+    private boolean isLosing(int move) {
+        int captured = Move.captured(move);
+        if (Move.isPromotion(move) || captured != Board.NONE && Search.VALUES[captured] >= Search.VALUES[Move.piece(move)]) {
+            return false;
+        }
+        return board.see(move) < 0;
+    }
+
+    /**
+     * MVV-LVA: zuerst nach dem Wert des geschlagenen Steins, bei Gleichstand mit dem billigeren Angreifer.
+     */
+    private void scoreCaptures() {
+        for (int i = 0; i < captureEnd; i++) {
+            int move = moves[i];
+            int captured = Move.captured(move);
+            int score = captured == Board.NONE ? 0 : Search.VALUES[captured] * 8 - Move.piece(move);
+            if (Move.isPromotion(move)) {
+                score += Search.VALUES[Move.promotion(move)];
+            }
+            scores[i] = score;
+        }
+    }
+
+    private void scoreQuiets() {
+        for (int i = index; i < count; i++) {
+            int move = moves[i];
+            scores[i] = history[Move.from(move)][Move.to(move)];
+        }
+    }
+
+    /**
+     * Sucht den besten Zug in [from, end) und tauscht ihn an die Stelle from.
+     */
+    private int selectBest(int from, int end) {
+        int best = from;
+        for (int i = from + 1; i < end; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = moves[best];
+        moves[best] = moves[from];
+        scores[best] = scores[from];
+        moves[from] = move;
+        return move;
+    }
+
+    /**
+     * Nimmt einen Killer- oder Gegenzug aus den ruhigen Zügen, falls er in dieser Stellung legal ist.
+     */
+    private boolean takeQuiet(int move) {
+        for (int i = index; i < count; i++) {
+            if (moves[i] == move) {
+                moves[i] = moves[index];
+                moves[index++] = move;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean contains(int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isTtMove(int move) {
+        return ttMoveFound && move == ttMove;
+    }
+}
@@ -0,0 +1,116 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Perft auf mehreren Threads: die Züge der Ausgangsstellung (und bei wenigen Zügen auch die der zweiten Ebene)
+ * werden als Aufgaben auf einen {@link ForkJoinPool} verteilt. Jede Aufgabe arbeitet auf einer eigenen Kopie
+ * der Stellung mit eigenem Zugstapel; gemeinsam ist nur die sperrfreie {@link PerftCache}.
+ */
+public class ParallelPerft {
+    /**
+     * Die Anzahl der Threads.
+     */
+    private final int threads;
+    /**
+     * Die gemeinsame Hashtabelle oder null.
+     */
+    private final PerftCache cache;
+    /**
+     * Die Summe der Rechenzeiten aller Aufgaben in Nanosekunden.
+     */
+    private final AtomicLong busyNanos = new AtomicLong();
+
+    /**
+     * Konstruktor für ParallelPerft.
+     *
+     * @param threads Die Anzahl der Threads.
+     * @param cache   Die gemeinsame Hashtabelle oder null.
+     */
+    public ParallelPerft(int threads, PerftCache cache) {
+        this.threads = threads;
+        this.cache = cache;
+    }
+
+    /**
+     * Zählt die Blattknoten für jeden Zug der Ausgangsstellung.
+     *
+     * @param board Die Stellung, wird nicht verändert.
+     * @param depth Die Tiefe, mindestens 1.
+     * @param moves Puffer für die Züge der Ausgangsstellung.
+     * @param nodes Puffer für die Knotenzahl je Zug.
+     * @return Die Anzahl der Züge der Ausgangsstellung.
+     */
+    public int divide(Board board, int depth, int[] moves, long[] nodes) {
+        int count = MoveGenerator.generateMoves(board, moves);
+        // Bei wenigen Zügen reicht die erste Ebene nicht, um alle Threads zu beschäftigen
+        boolean splitSecondPly = count < 2 * threads && depth > 2;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<PerftTask> tasks = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                tasks.add(new PerftTask(board, moves[i], depth - 1, splitSecondPly));
+            }
+            pool.submit(() -> PerftTask.invokeAll(tasks)).join();
+            for (int i = 0; i < count; i++) {
+                nodes[i] = tasks.get(i).join();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return count;
+    }
+
+    /**
+     * Gibt die Summe der Rechenzeiten aller Aufgaben zurück.
+     *
+     * @return Die Zeit in Nanosekunden.
+     */
+    public long getBusyNanos() {
+        return busyNanos.get();
+    }
+
+    /**
+     * Eine Aufgabe: führt einen Zug auf einer eigenen Kopie der Stellung aus und zählt den Teilbaum darunter.
+     */
+    private class PerftTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Board parent;
+        private final int move;
+        private final int depth;
+        private final boolean split;
+
+        PerftTask(Board parent, int move, int depth, boolean split) {
+            this.parent = parent;
+            this.move = move;
+            this.depth = depth;
+            this.split = split;
+        }
+
+        @Override
+        protected Long compute() {
+            Board board = new Board(parent);
+            board.makeMove(move);
+            if (split && depth > 1) {
+                int[] moves = new int[Move.MAX_MOVES];
+                int count = MoveGenerator.generateMoves(board, moves);
+                List<PerftTask> children = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    children.add(new PerftTask(board, moves[i], depth - 1, false));
+                }
+                long nodes = 0;
+                for (PerftTask child : invokeAll(children)) {
+                    nodes += child.join();
+                }
+                return nodes;
+            }
+            long start = System.nanoTime();
+            long nodes = new Perft(board, cache).perft(depth);
+            busyNanos.addAndGet(System.nanoTime() - start);
+            return nodes;
+        }
+    }
+}
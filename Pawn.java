@@ -1,6 +1,3 @@
-import java.util.NoSuchElementException;
-import java.util.Scanner;
-
 /**
  * Diese Klasse repräsentiert einen Bauern in einem Schachspiel. Sie erbt von der Klasse Piece und
  * implementiert die Bewegungsregeln für einen Bauern.
@@ -25,10 +22,9 @@ public class Pawn extends Piece {
      * @param toCol   Die Zielspalte für den Zug.
      * @param toRow   Die Zielreihe für den Zug.
      * @return true, wenn der Zug gültig ist, andernfalls false.
-     * @throws NoSuchElementException Wenn der Benutzer ungültige Eingaben bei der Bauernumwandlung macht.
      */
     @Override
-    public Boolean validateMove(Piece[][] board, int fromCol, int fromRow, int toCol, int toRow) throws NoSuchElementException {
+    public Boolean validateMove(Piece[][] board, int fromCol, int fromRow, int toCol, int toRow) {
         if (color.equals("white")) {
             if (toRow < fromRow) {
                 return false; // weiße Bauern können sich nicht Rückwärts bewegen
@@ -83,14 +79,10 @@ public class Pawn extends Piece {
                 // Check von en passant
                 if (color.equals("white") && fromRow == 4 && toRow == 5 &&
                     board[4][toCol] instanceof Pawn && ((Pawn) board[4][toCol]).getHasMoved() == 1) {
-                    hasMoved++;
-                    board[4][toCol] = null; // schmeißt den en passant geschmissenen Bauern; aktualisiert das Brett
-                    return true;
+                    return true; // der Bauer auf board[4][toCol] wird en passant geschmissen
                 } else if (color.equals("black") && fromRow == 3 && toRow == 2 &&
                            board[3][toCol] instanceof Pawn && ((Pawn) board[3][toCol]).getHasMoved() == 1) {
-                    hasMoved++;
-                    board[3][toCol] = null; // schmeißt den en passant geschmissenen Bauern; aktualisiert das Brett
-                    return true;
+                    return true; // der Bauer auf board[3][toCol] wird en passant geschmissen
                 } else {
                     return false; // Keine Figur zum Schmeissen da
                 }
@@ -99,46 +91,8 @@ public class Pawn extends Piece {
             }
         }
 
-        // Bauern promotion
-        if ((color.equals("white") && toRow == 0) || (color.equals("black") && toRow == 7)) {
-            Scanner promotionScanner = new Scanner(System.in);
-            System.out.println("Wähle eine Figur für die Bauern-Promotion aus (Q, R, B, N): ");
-
-            while (true) {
-                if (promotionScanner.hasNext()) {
-                    String promotionPiece = promotionScanner.nextLine().toUpperCase();
-                    switch (promotionPiece) {
-                        case "Q":
-                            board[toRow][toCol] = new Queen(color);
-                            break;
-                        case "R":
-                            board[toRow][toCol] = new Rook(color);
-                            break;
-                        case "B":
-                            board[toRow][toCol] = new Bishop(color);
-                            break;
-                        case "N":
-                            board[toRow][toCol] = new Knight(color);
-                            break;
-                        default:
-                            System.out.println("Ungültige Figur. Der Bauer wird zur Königin promoviert.");
-                            board[toRow][toCol] = new Queen(color);
-                    }
-                    promotionScanner.close();
-                    hasMoved++;
-                    return true;
-                } else {
-                    try {
-                        Thread.sleep(100); // kurze Pause
-                    } catch (InterruptedException e) {
-                        // Ignoriert geworfene Exceptions
-                    }
-                }
-            }
-        } else {
-            hasMoved++;
-            return true;
-        }
+        // Die Umwandlung auf der letzten Reihe führt Board.movePiece aus
+        return true;
     }
 
     /**
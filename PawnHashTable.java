@@ -0,0 +1,148 @@
+import java.util.Arrays;
+
+/**
+ * Direkt adressierter Zwischenspeicher für die Bauernstruktur, indiziert mit {@link Board#pawnHash()}.
+ * <p>
+ * Die Bauernstellung ändert sich in der Suche selten (nur bei Bauernzügen und wenn ein Bauer geschlagen wird),
+ * daher wird die teure Auswertung von Freibauern, Doppel-, isolierten und rückständigen Bauern sowie der
+ * Bauernschilde fast immer hier gefunden. Gespeichert werden je Eintrag die Bewertung für Mittel- und Endspiel
+ * aus Sicht von Weiß, die Freibauern beider Farben als Bitboards und der Wert des Bauernschildes für jede
+ * Linie, auf der der König stehen kann.
+ * <p>
+ * Die Einträge liegen in parallelen Arrays, ein neuer Eintrag überschreibt immer den alten. Jeder Such-Thread
+ * hat eine eigene Tabelle, sie ist nicht threadsicher.
+ */
+public class PawnHashTable {
+    private final long[] keys;
+    private final int[] midgame;
+    private final int[] endgame;
+    /**
+     * Die Freibauern, zwei Bitboards je Eintrag (Weiß, Schwarz).
+     */
+    private final long[] passed;
+    /**
+     * Der Bauernschild, 16 Werte je Eintrag: je Farbe einer für jede Linie des Königs.
+     */
+    private final byte[] shields;
+    private final int mask;
+
+    private long probes;
+    private long hits;
+
+    /**
+     * Legt eine Tabelle an.
+     *
+     * @param entries Die Anzahl der Einträge, wird auf eine Zweierpotenz abgerundet.
+     */
+    public PawnHashTable(int entries) {
+        int size = Integer.highestOneBit(Math.max(1, entries));
+        mask = size - 1;
+        keys = new long[size];
+        midgame = new int[size];
+        endgame = new int[size];
+        passed = new long[2 * size];
+        shields = new byte[16 * size];
+        // Ein leerer Eintrag darf nicht zur Stellung ohne Bauern passen
+        Arrays.fill(keys, -1L);
+    }
+
+    /**
+     * Sucht eine Bauernstellung.
+     *
+     * @param key Der Bauernschlüssel ({@link Board#pawnHash()}).
+     * @return Der Eintrag bei einem Treffer, sonst {@code -(Eintrag) - 1} für {@link #store}.
+     */
+    public int probe(long key) {
+        probes++;
+        int slot = (int) key & mask;
+        if (keys[slot] == key) {
+            hits++;
+            return slot;
+        }
+        return -slot - 1;
+    }
+
+    /**
+     * Speichert die Auswertung einer Bauernstellung.
+     *
+     * @param slot        Der Eintrag aus {@link #probe}.
+     * @param key         Der Bauernschlüssel.
+     * @param midgame     Die Bewertung für das Mittelspiel aus Sicht von Weiß.
+     * @param endgame     Die Bewertung für das Endspiel aus Sicht von Weiß.
+     * @param whitePassed Die weißen Freibauern.
+     * @param blackPassed Die schwarzen Freibauern.
+     * @param shield      Der Bauernschild je Farbe und Linie des Königs, 16 Werte ab Weiß.
+     */
+    public void store(int slot, long key, int midgame, int endgame, long whitePassed, long blackPassed, byte[] shield) {
+        keys[slot] = key;
+        this.midgame[slot] = midgame;
+        this.endgame[slot] = endgame;
+        passed[2 * slot] = whitePassed;
+        passed[2 * slot + 1] = blackPassed;
+        System.arraycopy(shield, 0, shields, 16 * slot, 16);
+    }
+
+    /**
+     * Gibt die Bewertung der Bauern für das Mittelspiel aus Sicht von Weiß zurück.
+     */
+    public int midgame(int slot) {
+        return midgame[slot];
+    }
+
+    /**
+     * Gibt die Bewertung der Bauern für das Endspiel aus Sicht von Weiß zurück.
+     */
+    public int endgame(int slot) {
+        return endgame[slot];
+    }
+
+    /**
+     * Gibt die Freibauern einer Farbe zurück.
+     */
+    public long passed(int slot, int color) {
+        return passed[2 * slot + color];
+    }
+
+    /**
+     * Gibt den Wert des Bauernschildes zurück, wenn der König der Farbe auf der Linie steht.
+     */
+    public int shield(int slot, int color, int file) {
+        return shields[16 * slot + 8 * color + file];
+    }
+
+    /**
+     * Gibt den Anteil der Treffer an allen Abfragen zurück.
+     *
+     * @return Die Trefferquote zwischen 0 und 1.
+     */
+    public double hitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    /**
+     * Gibt die Anzahl der Abfragen zurück.
+     *
+     * @return Die Anzahl.
+     */
+    public long getProbes() {
+        return probes;
+    }
+
+    /**
+     * Gibt die Anzahl der Treffer zurück.
+     *
+     * @return Die Anzahl.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gibt die Anzahl der Einträge zurück.
+     *
+     * @return Die Anzahl.
+     */
+    public int size() {
+        return mask + 1;
+    }
+}
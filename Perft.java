@@ -0,0 +1,148 @@
+import java.io.PrintStream;
+
+/**
+ * Zählt alle Stellungen bis zu einer festen Tiefe (Perft), um den Zuggenerator zu prüfen und seine
+ * Geschwindigkeit zu messen.
+ */
+public class Perft {
+    /**
+     * Maximale Tiefe, für die Zugpuffer angelegt werden.
+     */
+    public static final int MAX_DEPTH = 32;
+
+    /**
+     * Die Stellung, auf der gezählt wird.
+     */
+    private final Board board;
+    /**
+     * Ein Zugpuffer je Tiefe, damit beim Zählen nichts allokiert wird.
+     */
+    private final int[][] moves = new int[MAX_DEPTH + 1][Move.MAX_MOVES];
+    /**
+     * Die Hashtabelle für Zwischenergebnisse oder null.
+     */
+    private final PerftCache cache;
+
+    /**
+     * Konstruktor für Perft.
+     *
+     * @param board Die Stellung, auf der gezählt wird.
+     * @param cache Die Hashtabelle für Zwischenergebnisse oder null.
+     */
+    public Perft(Board board, PerftCache cache) {
+        this.board = board;
+        this.cache = cache;
+    }
+
+    /**
+     * Zählt die Blattknoten bis zur angegebenen Tiefe.
+     *
+     * @param depth Die Tiefe.
+     * @return Die Anzahl der Blattknoten.
+     */
+    public long perft(int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        int[] buffer = moves[depth];
+        int count = MoveGenerator.generateMoves(board, buffer);
+        if (depth == 1) {
+            return count; // Die Blätter müssen nicht ausgeführt werden
+        }
+        long hash = 0L;
+        if (cache != null) {
+            hash = board.hash();
+            long cached = cache.probe(hash, depth);
+            if (cached >= 0) {
+                return cached;
+            }
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(buffer[i]);
+            nodes += perft(depth - 1);
+            board.unmakeMove();
+        }
+        if (cache != null) {
+            cache.store(hash, depth, nodes);
+        }
+        return nodes;
+    }
+
+    /**
+     * Zählt die Blattknoten für jeden Zug der Ausgangsstellung einzeln (Divide).
+     *
+     * @param depth Die Tiefe, mindestens 1.
+     * @param rootMoves Puffer für die Züge der Ausgangsstellung.
+     * @param nodes Puffer für die Knotenzahl je Zug.
+     * @return Die Anzahl der Züge der Ausgangsstellung.
+     */
+    public int divide(int depth, int[] rootMoves, long[] nodes) {
+        int count = MoveGenerator.generateMoves(board, rootMoves);
+        for (int i = 0; i < count; i++) {
+            board.makeMove(rootMoves[i]);
+            nodes[i] = perft(depth - 1);
+            board.unmakeMove();
+        }
+        return count;
+    }
+
+    /**
+     * Führt den Perft-Modus aus: gibt Divide, Gesamtknoten und Knoten pro Sekunde aus.
+     * Mit mehreren Threads wird zusätzlich die Auslastung ausgegeben (Summe der Rechenzeiten aller Threads
+     * geteilt durch die Laufzeit); mit {@code compare} wird zum Vergleich ein zweiter Lauf mit einem Thread
+     * gemessen und die tatsächliche Beschleunigung ausgegeben. Die Hashtabelle wird nur einmal vor der
+     * Zeitmessung angelegt und für den Vergleichslauf geleert.
+     *
+     * @param board     Die Stellung.
+     * @param depth     Die Tiefe.
+     * @param megabytes Die Größe der Hashtabelle in MB, 0 für keine.
+     * @param threads   Die Anzahl der Threads.
+     * @param compare   Ob zum Vergleich ein Lauf mit einem Thread gemessen wird.
+     * @param out       Die Ausgabe.
+     * @return Die Anzahl der Blattknoten.
+     */
+    public static long run(Board board, int depth, int megabytes, int threads, boolean compare, PrintStream out) {
+        out.println(Attacks.describeTables());
+        int[] rootMoves = new int[Move.MAX_MOVES];
+        long[] nodes = new long[Move.MAX_MOVES];
+        PerftCache cache = megabytes > 0 ? new PerftCache(megabytes) : null;
+        ParallelPerft parallel = threads > 1 ? new ParallelPerft(threads, cache) : null;
+
+        long start = System.nanoTime();
+        int count;
+        if (parallel != null) {
+            count = parallel.divide(board, depth, rootMoves, nodes);
+        } else {
+            count = new Perft(board, cache).divide(depth, rootMoves, nodes);
+        }
+        long nanos = Math.max(1, System.nanoTime() - start);
+
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            out.println(Move.toString(rootMoves[i]) + ": " + nodes[i]);
+            total += nodes[i];
+        }
+        out.println();
+        out.println("Knoten: " + total);
+        out.printf("Zeit: %d ms (%.0f Knoten/s, %d Threads)%n", nanos / 1_000_000, total * 1e9 / nanos, threads);
+
+        if (parallel != null) {
+            if (compare) {
+                if (cache != null) {
+                    cache.clear();
+                }
+                Perft single = new Perft(new Board(board), cache);
+                long singleStart = System.nanoTime();
+                single.divide(depth, rootMoves, nodes);
+                long singleNanos = System.nanoTime() - singleStart;
+                out.printf("Beschleunigung gegenüber 1 Thread: %.2fx (1 Thread: %d ms)%n", (double) singleNanos / nanos, singleNanos / 1_000_000);
+            } else {
+                out.printf("Auslastung (Rechenzeit aller Threads / Laufzeit): %.2f von %d Threads"
+                        + " (für die Beschleunigung gegenüber 1 Thread \"compare\" angeben)%n",
+                        (double) parallel.getBusyNanos() / nanos, threads);
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,81 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Hashtabelle für Perft-Ergebnisse, damit gleiche Stellungen in derselben Tiefe nur einmal gezählt werden.
+ * Jeder Eintrag besteht aus dem Schlüssel (Stellung und Tiefe) und der Anzahl der Knoten; bei Kollisionen
+ * wird der alte Eintrag überschrieben.
+ * Die Tabelle kann ohne Sperren von mehreren Threads benutzt werden: gespeichert wird {@code Schlüssel ^ Knoten},
+ * sodass ein halb überschriebener Eintrag beim Lesen nicht mehr zum Schlüssel passt und als Fehltreffer zählt.
+ */
+public class PerftCache {
+    /**
+     * Die Schlüssel der Einträge, mit der Knotenzahl verknüpft.
+     */
+    private final AtomicLongArray keys;
+    /**
+     * Die gespeicherten Knotenzahlen.
+     */
+    private final AtomicLongArray nodes;
+    /**
+     * Maske für den Index (Anzahl der Einträge minus 1).
+     */
+    private final int mask;
+
+    /**
+     * Legt eine Tabelle mit der angegebenen Größe an.
+     *
+     * @param megabytes Die Größe in MB, wird auf eine Zweierpotenz an Einträgen abgerundet.
+     */
+    public PerftCache(int megabytes) {
+        long entries = Math.max(1L, (long) megabytes * 1024 * 1024 / 16);
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+        keys = new AtomicLongArray(size);
+        nodes = new AtomicLongArray(size);
+        mask = size - 1;
+    }
+
+    /**
+     * Sucht die Knotenzahl einer Stellung in der angegebenen Tiefe.
+     *
+     * @param hash  Der Zobrist-Schlüssel der Stellung.
+     * @param depth Die verbleibende Tiefe.
+     * @return Die Knotenzahl oder -1, wenn die Stellung nicht gespeichert ist.
+     */
+    public long probe(long hash, int depth) {
+        long key = key(hash, depth);
+        int index = (int) key & mask;
+        long count = nodes.getOpaque(index);
+        return (keys.getOpaque(index) ^ count) == key ? count : -1;
+    }
+
+    /**
+     * Speichert die Knotenzahl einer Stellung in der angegebenen Tiefe.
+     *
+     * @param hash  Der Zobrist-Schlüssel der Stellung.
+     * @param depth Die verbleibende Tiefe.
+     * @param count Die Knotenzahl.
+     */
+    public void store(long hash, int depth, long count) {
+        long key = key(hash, depth);
+        int index = (int) key & mask;
+        keys.setOpaque(index, key ^ count);
+        nodes.setOpaque(index, count);
+    }
+
+    /**
+     * Leert die Tabelle, z.B. vor einem Vergleichslauf mit derselben Tabelle.
+     */
+    public void clear() {
+        for (int i = 0; i <= mask; i++) {
+            keys.setOpaque(i, 0L);
+            nodes.setOpaque(i, 0L);
+        }
+    }
+
+    /**
+     * Mischt die Tiefe in den Schlüssel, damit dieselbe Stellung in verschiedenen Tiefen getrennt gespeichert wird.
+     */
+    private static long key(long hash, int depth) {
+        return hash ^ depth * 0x9e3779b97f4a7c15L;
+    }
+}
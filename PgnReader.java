@@ -0,0 +1,669 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Liest Partien aus PGN-Dateien (Portable Game Notation), auch Datenbanken mit mehreren GB und Millionen Partien.
+ * <p>
+ * Die Datei wird abschnittsweise per {@link FileChannel#map} in den Speicher eingeblendet und direkt auf den
+ * Bytes zerlegt: für Tags und Züge entstehen keine Strings, ein Tag-Wert wird erst bei {@link Game#getTag}
+ * dekodiert. Die Züge in Standard-Algebraischer Notation (SAN) werden gegen die Stellung aufgelöst
+ * (Mehrdeutigkeiten, Rochade, Umwandlung, Schach- und Kommentarzeichen) und als {@link Move} gespeichert.
+ * Kommentare, Varianten und NAGs werden übersprungen.
+ * <p>
+ * Die Partien werden einzeln an einen Callback übergeben; dabei wird dasselbe {@link Game}-Objekt und dasselbe
+ * Brett für jede Partie wiederverwendet, der Speicherbedarf hängt also nicht von der Dateigröße ab.
+ * Partien mit einem ungültigen Zug werden übersprungen und gezählt ({@link #getErrors()}).
+ */
+public class PgnReader {
+    /**
+     * Die Größe eines eingeblendeten Abschnitts.
+     */
+    private static final int WINDOW = 1 << 28;
+    /**
+     * Die größte unterstützte Partie in Bytes; so viel muss ab dem Beginn einer Partie im Abschnitt liegen.
+     */
+    private static final int MAX_GAME = 1 << 22;
+    private static final int MAX_TAGS = 64;
+
+    private final Path path;
+    private final int[] moveBuffer = new int[Move.MAX_MOVES];
+    /**
+     * Das Brett für Partien ab der Grundstellung; nach jeder Partie werden ihre Züge zurückgenommen.
+     */
+    private final Board startBoard = new Board();
+    /**
+     * Das Brett für Partien mit Tag "FEN"; es wird per {@link Board#setFen(CharSequence)} neu gesetzt.
+     */
+    private final Board fenBoard = new Board();
+    private final AsciiSequence fenText = new AsciiSequence();
+    private final Game game = new Game();
+
+    private long games;
+    private long moves;
+    private long errors;
+
+    /**
+     * Konstruktor für PgnReader.
+     *
+     * @param path Die PGN-Datei.
+     */
+    public PgnReader(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Liest die erste gültige Partie einer Datei.
+     *
+     * @param path Die PGN-Datei.
+     * @return Eine unabhängige Kopie der Partie oder null, wenn die Datei keine gültige Partie enthält.
+     * @throws IOException Wenn die Datei nicht gelesen werden kann.
+     */
+    public static Game readFirst(Path path) throws IOException {
+        Game[] first = new Game[1];
+        new PgnReader(path).read(game -> {
+            first[0] = game.copy();
+            return false;
+        });
+        return first[0];
+    }
+
+    /**
+     * Liest die Partien der Reihe nach und übergibt jede an den Callback. Das {@link Game} ist nur während
+     * des Aufrufs gültig, mit {@link Game#copy()} lässt es sich aufbewahren.
+     *
+     * @param consumer Erhält die Partien; gibt false zurück, um das Lesen zu beenden.
+     * @return Die Anzahl der übergebenen Partien.
+     * @throws IOException Wenn die Datei nicht gelesen werden kann.
+     */
+    public long read(Predicate<Game> consumer) throws IOException {
+        long before = games;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            long windowStart = 0;
+            MappedByteBuffer window = null;
+            while (position < size) {
+                // Neu einblenden, wenn die nächste Partie über das Ende des Abschnitts hinausgehen könnte
+                if (window == null || position + MAX_GAME > windowStart + window.limit() && windowStart + window.limit() < size) {
+                    windowStart = position;
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position));
+                }
+                int start = (int) (position - windowStart);
+                if (position == 0 && size >= 3 && (window.get(0) & 0xFF) == 0xEF
+                        && (window.get(1) & 0xFF) == 0xBB && (window.get(2) & 0xFF) == 0xBF) {
+                    start = 3; // UTF-8-BOM
+                }
+                int end = parseGame(window, start, window.limit());
+                position = windowStart + end;
+                if (end == start) {
+                    break;
+                }
+                if (game.valid) {
+                    games++;
+                    moves += game.moveCount;
+                    if (!consumer.test(game)) {
+                        break;
+                    }
+                } else if (game.moveCount > 0 || game.tagCount > 0) {
+                    errors++;
+                }
+            }
+        }
+        return games - before;
+    }
+
+    /**
+     * Zerlegt eine Partie ab {@code pos}: Tags, dann Züge bis zum Ergebnis oder zum nächsten Tag-Abschnitt.
+     *
+     * @return Die Position hinter der Partie.
+     */
+    private int parseGame(ByteBuffer buffer, int pos, int end) {
+        game.reset(buffer);
+        pos = skipWhitespace(buffer, pos, end);
+        game.start = pos;
+
+        // Tag-Abschnitt: [Name "Wert"]
+        while (pos < end && buffer.get(pos) == '[') {
+            pos = parseTag(buffer, pos + 1, end);
+            pos = skipWhitespace(buffer, pos, end);
+        }
+
+        Board board = startBoard;
+        int fenTag = game.findTag("FEN");
+        if (fenTag >= 0) {
+            try {
+                fenBoard.setFen(fenText.of(buffer, game.tags[4 * fenTag + 2], game.tags[4 * fenTag + 3]));
+                board = fenBoard;
+            } catch (RuntimeException e) {
+                game.valid = false;
+            }
+        }
+
+        while (pos < end) {
+            byte c = buffer.get(pos);
+            if (c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '.') {
+                pos++;
+            } else if (c == '{') {
+                pos = skipPast(buffer, pos, end, (byte) '}');
+            } else if (c == ';' || c == '%' && (pos == 0 || buffer.get(pos - 1) == '\n')) {
+                pos = skipPast(buffer, pos, end, (byte) '\n');
+            } else if (c == '(') {
+                pos = skipVariation(buffer, pos, end);
+            } else if (c == '$') {
+                pos = skipToken(buffer, pos + 1, end);
+            } else if (c == ')' || c == '}' || c == ']') {
+                pos++; // Unpassende Klammer
+            } else if (c == '[') {
+                break; // Die nächste Partie beginnt, ohne dass ein Ergebnis angegeben war
+            } else if (c == '*') {
+                game.result = "*";
+                pos++;
+                break;
+            } else {
+                int tokenEnd = skipToken(buffer, pos, end);
+                boolean castling = c == '0' && tokenEnd - pos >= 3 && buffer.get(pos + 1) == '-' && buffer.get(pos + 2) == '0';
+                if (c >= '0' && c <= '9' && !castling) {
+                    String result = result(buffer, pos, tokenEnd);
+                    if (result != null) {
+                        game.result = result;
+                        pos = tokenEnd;
+                        break;
+                    }
+                    // Zugnummer, z.B. "12." oder "12..."
+                    while (pos < tokenEnd && buffer.get(pos) >= '0' && buffer.get(pos) <= '9') {
+                        pos++;
+                    }
+                    continue;
+                }
+                if (game.valid) {
+                    int move = parseSan(board, buffer, pos, tokenEnd);
+                    if (move == Move.NONE) {
+                        game.valid = false;
+                    } else {
+                        board.makeMove(move);
+                        game.addMove(move);
+                    }
+                }
+                pos = tokenEnd;
+            }
+        }
+        game.end = pos;
+        if (game.moveCount == 0 && game.tagCount == 0) {
+            game.valid = false; // Nur noch Leerraum oder ein einzelnes Ergebnis
+        }
+
+        // Das wiederverwendete Brett in die Grundstellung zurücksetzen
+        if (board == startBoard) {
+            for (int i = 0; i < game.moveCount; i++) {
+                startBoard.unmakeMove();
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Liest einen Tag ab dem Namen; merkt sich nur die Positionen von Name und Wert.
+     *
+     * @return Die Position hinter der schließenden Klammer.
+     */
+    private int parseTag(ByteBuffer buffer, int pos, int end) {
+        int nameStart = pos;
+        while (pos < end && buffer.get(pos) > ' ' && buffer.get(pos) != '"') {
+            pos++;
+        }
+        int nameEnd = pos;
+        while (pos < end && buffer.get(pos) != '"' && buffer.get(pos) != ']' && buffer.get(pos) != '\n') {
+            pos++;
+        }
+        int valueStart = pos + 1;
+        int valueEnd = valueStart;
+        if (pos < end && buffer.get(pos) == '"') {
+            pos++;
+            while (pos < end && buffer.get(pos) != '"') {
+                pos += buffer.get(pos) == '\\' ? 2 : 1;
+            }
+            valueEnd = Math.min(pos, end);
+        }
+        game.addTag(nameStart, nameEnd, valueStart, valueEnd);
+        while (pos < end && buffer.get(pos) != ']' && buffer.get(pos) != '\n') {
+            pos++;
+        }
+        return Math.min(end, pos + 1);
+    }
+
+    /**
+     * Löst einen Zug in SAN gegen die Stellung auf, z.B. "e4", "Nbd7", "R1e2", "exd6", "e8=Q+", "O-O-O#".
+     *
+     * @return Der legale Zug oder {@link Move#NONE}, auch wenn der Zug mehrdeutig ist oder bei einer
+     *         Umwandlung die Figur fehlt.
+     */
+    private int parseSan(Board board, ByteBuffer buffer, int start, int end) {
+        // Schach-, Matt- und Kommentarzeichen am Ende
+        while (end > start && "+#!?".indexOf(buffer.get(end - 1)) >= 0) {
+            end--;
+        }
+        if (end - start < 2) {
+            return Move.NONE;
+        }
+        int count = MoveGenerator.generateMoves(board, moveBuffer);
+        byte first = buffer.get(start);
+        if (first == 'O' || first == '0') {
+            int to = board.getSideToMove() == Board.WHITE ? 0 : 56;
+            to += end - start >= 5 ? 2 : 6; // "O-O-O" bzw. "O-O"
+            for (int i = 0; i < count; i++) {
+                if ((Move.flags(moveBuffer[i]) & Move.CASTLING) != 0 && Move.to(moveBuffer[i]) == to) {
+                    return moveBuffer[i];
+                }
+            }
+            return Move.NONE;
+        }
+
+        int piece = Board.PAWN;
+        int pos = start;
+        int type = pieceType(first);
+        if (type > Board.PAWN) {
+            piece = type;
+            pos++;
+        }
+        int promotion = 0;
+        if (piece == Board.PAWN) {
+            int last = pieceType(buffer.get(end - 1));
+            if (last > Board.PAWN && last < Board.KING) {
+                promotion = last;
+                end--;
+                if (end > start && buffer.get(end - 1) == '=') {
+                    end--;
+                }
+            }
+        }
+        if (end - pos < 2) {
+            return Move.NONE;
+        }
+        int toFile = buffer.get(end - 2) - 'a';
+        int toRank = buffer.get(end - 1) - '1';
+        if (toFile < 0 || toFile > 7 || toRank < 0 || toRank > 7) {
+            return Move.NONE;
+        }
+        int fromFile = -1;
+        int fromRank = -1;
+        for (int i = pos; i < end - 2; i++) {
+            byte c = buffer.get(i);
+            if (c >= 'a' && c <= 'h') {
+                fromFile = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRank = c - '1';
+            } else if (c != 'x' && c != '-' && c != ':') {
+                return Move.NONE;
+            }
+        }
+
+        // Genau ein legaler Zug muss passen; eine Umwandlung braucht die Figur ("e8=Q", nicht "e8")
+        int to = Board.square(toRank, toFile);
+        int found = Move.NONE;
+        for (int i = 0; i < count; i++) {
+            int move = moveBuffer[i];
+            int from = Move.from(move);
+            if (Move.to(move) == to && Move.piece(move) == piece
+                    && (fromFile < 0 || from % 8 == fromFile) && (fromRank < 0 || from / 8 == fromRank)
+                    && (Move.isPromotion(move) ? Move.promotion(move) == promotion : promotion == 0)) {
+                if (found != Move.NONE) {
+                    return Move.NONE; // Mehrdeutig
+                }
+                found = move;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Gibt den Figurentyp zu einem Buchstaben in SAN zurück.
+     *
+     * @return Der Typ oder {@link Board#PAWN}, wenn der Buchstabe keine Figur ist.
+     */
+    private static int pieceType(byte c) {
+        switch (c) {
+            case 'N':
+                return Board.KNIGHT;
+            case 'B':
+                return Board.BISHOP;
+            case 'R':
+                return Board.ROOK;
+            case 'Q':
+                return Board.QUEEN;
+            case 'K':
+                return Board.KING;
+            default:
+                return Board.PAWN;
+        }
+    }
+
+    /**
+     * Erkennt ein Ergebnis ("1-0", "0-1", "1/2-1/2").
+     *
+     * @return Das Ergebnis als Konstante oder null.
+     */
+    private static String result(ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (length == 3 && buffer.get(start + 1) == '-') {
+            if (buffer.get(start) == '1' && buffer.get(start + 2) == '0') {
+                return "1-0";
+            }
+            if (buffer.get(start) == '0' && buffer.get(start + 2) == '1') {
+                return "0-1";
+            }
+        } else if (length == 7 && buffer.get(start + 1) == '/' && buffer.get(start + 3) == '-') {
+            return "1/2-1/2";
+        }
+        return null;
+    }
+
+    private static int skipWhitespace(ByteBuffer buffer, int pos, int end) {
+        while (pos < end && buffer.get(pos) <= ' ' && buffer.get(pos) >= 0) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Überspringt ein Token bis zum nächsten Leerzeichen oder Sonderzeichen der PGN.
+     */
+    private static int skipToken(ByteBuffer buffer, int pos, int end) {
+        while (pos < end) {
+            byte c = buffer.get(pos);
+            if (c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '{' || c == '}' || c == '(' || c == ')'
+                    || c == ';' || c == '[') {
+                break;
+            }
+            pos++;
+            if (c == '.' && pos < end && buffer.get(pos) != '.') {
+                break; // "1.e4" ohne Leerzeichen
+            }
+        }
+        return pos;
+    }
+
+    private static int skipPast(ByteBuffer buffer, int pos, int end, byte terminator) {
+        while (pos < end && buffer.get(pos) != terminator) {
+            pos++;
+        }
+        return Math.min(end, pos + 1);
+    }
+
+    /**
+     * Überspringt eine Variante samt verschachtelten Varianten und Kommentaren.
+     */
+    private static int skipVariation(ByteBuffer buffer, int pos, int end) {
+        int depth = 0;
+        while (pos < end) {
+            byte c = buffer.get(pos);
+            if (c == '{') {
+                pos = skipPast(buffer, pos, end, (byte) '}');
+                continue;
+            }
+            pos++;
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                break;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Gibt die Anzahl der gelesenen gültigen Partien zurück.
+     *
+     * @return Die Anzahl.
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Gibt die Anzahl der Züge in allen gültigen Partien zurück.
+     *
+     * @return Die Anzahl.
+     */
+    public long getMoves() {
+        return moves;
+    }
+
+    /**
+     * Gibt die Anzahl der übersprungenen Partien mit ungültigen Zügen oder Stellungen zurück.
+     *
+     * @return Die Anzahl.
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Eine gelesene Partie: Tags, Züge und Ergebnis.
+     */
+    public static final class Game {
+        /**
+         * Die Bytes der Datei bzw. bei einer Kopie nur die der Partie.
+         */
+        private ByteBuffer source;
+        private int start;
+        private int end;
+        // Je Tag: Anfang und Ende von Name und Wert in source
+        private int[] tags = new int[4 * MAX_TAGS];
+        private int tagCount;
+        private int[] moves = new int[256];
+        private int moveCount;
+        private String result = "*";
+        private boolean valid;
+
+        private Game() {
+        }
+
+        private void reset(ByteBuffer buffer) {
+            source = buffer;
+            tagCount = 0;
+            moveCount = 0;
+            result = "*";
+            valid = true;
+        }
+
+        private void addTag(int nameStart, int nameEnd, int valueStart, int valueEnd) {
+            if (tagCount < MAX_TAGS) {
+                int i = 4 * tagCount++;
+                tags[i] = nameStart;
+                tags[i + 1] = nameEnd;
+                tags[i + 2] = valueStart;
+                tags[i + 3] = valueEnd;
+            }
+        }
+
+        private void addMove(int move) {
+            if (moveCount == moves.length) {
+                moves = Arrays.copyOf(moves, 2 * moves.length);
+            }
+            moves[moveCount++] = move;
+        }
+
+        /**
+         * Gibt den Wert eines Tags zurück, z.B. "White" oder "Date".
+         *
+         * @param name Der Name des Tags, Groß- und Kleinschreibung werden unterschieden.
+         * @return Der Wert oder null, wenn die Partie den Tag nicht hat.
+         */
+        public String getTag(String name) {
+            int t = findTag(name);
+            return t >= 0 ? decode(tags[4 * t + 2], tags[4 * t + 3]) : null;
+        }
+
+        /**
+         * Sucht einen Tag.
+         *
+         * @return Der Index des Tags oder -1.
+         */
+        private int findTag(String name) {
+            for (int t = 0; t < tagCount; t++) {
+                int nameStart = tags[4 * t];
+                int length = tags[4 * t + 1] - nameStart;
+                if (length != name.length()) {
+                    continue;
+                }
+                int i = 0;
+                while (i < length && source.get(nameStart + i) == name.charAt(i)) {
+                    i++;
+                }
+                if (i == length) {
+                    return t;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Dekodiert einen Tag-Wert (UTF-8, mit "\"" und "\\" maskiert).
+         */
+        private String decode(int from, int to) {
+            byte[] bytes = new byte[Math.max(0, to - from)];
+            int length = 0;
+            for (int i = from; i < to; i++) {
+                byte c = source.get(i);
+                if (c == '\\' && i + 1 < to) {
+                    c = source.get(++i);
+                }
+                bytes[length++] = c;
+            }
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Gibt die Ausgangsstellung zurück, wenn die Partie nicht in der Grundstellung beginnt.
+         *
+         * @return Die FEN aus dem Tag "FEN" oder null.
+         */
+        public String getFen() {
+            return getTag("FEN");
+        }
+
+        /**
+         * Gibt das Ergebnis zurück.
+         *
+         * @return "1-0", "0-1", "1/2-1/2" oder "*".
+         */
+        public String getResult() {
+            return result;
+        }
+
+        /**
+         * Gibt die Anzahl der Halbzüge zurück.
+         *
+         * @return Die Anzahl.
+         */
+        public int getMoveCount() {
+            return moveCount;
+        }
+
+        /**
+         * Gibt einen Halbzug zurück.
+         *
+         * @param index Der Index ab 0.
+         * @return Der Zug (siehe {@link Move}).
+         */
+        public int getMove(int index) {
+            return moves[index];
+        }
+
+        /**
+         * Gibt alle Halbzüge zurück.
+         *
+         * @return Eine Kopie der Züge.
+         */
+        public int[] getMoves() {
+            return Arrays.copyOf(moves, moveCount);
+        }
+
+        /**
+         * Spielt die Partie auf einem neuen Brett nach, inklusive der Figurenobjekte für die Oberfläche.
+         *
+         * @return Das Brett mit der Stellung nach dem letzten Zug.
+         */
+        public Board toBoard() {
+            String fen = getFen();
+            Board board = fen != null ? new Board(fen) : new Board();
+            for (int i = 0; i < moveCount; i++) {
+                board.playMove(moves[i]);
+            }
+            return board;
+        }
+
+        /**
+         * Erzeugt eine unabhängige Kopie, die auch nach dem Lesen der nächsten Partie gültig bleibt.
+         *
+         * @return Die Kopie.
+         */
+        public Game copy() {
+            Game copy = new Game();
+            byte[] bytes = new byte[end - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = source.get(start + i);
+            }
+            copy.source = ByteBuffer.wrap(bytes);
+            copy.end = bytes.length;
+            copy.tags = new int[4 * tagCount];
+            for (int i = 0; i < copy.tags.length; i++) {
+                copy.tags[i] = tags[i] - start;
+            }
+            copy.tagCount = tagCount;
+            copy.moves = getMoves();
+            copy.moveCount = moveCount;
+            copy.result = result;
+            copy.valid = valid;
+            return copy;
+        }
+    }
+
+    /**
+     * Ein Abschnitt der Datei als Zeichenfolge, z.B. für den Wert des Tags "FEN", ohne ihn zu kopieren.
+     * Bytes über 127 werden nicht dekodiert; das genügt für FEN, die nur ASCII enthält.
+     */
+    private static final class AsciiSequence implements CharSequence {
+        private ByteBuffer source;
+        private int from;
+        private int to;
+
+        private AsciiSequence of(ByteBuffer source, int from, int to) {
+            this.source = source;
+            this.from = from;
+            this.to = to;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return to - from;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (source.get(from + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(length());
+            for (int i = from; i < to; i++) {
+                text.append((char) (source.get(i) & 0xFF));
+            }
+            return text.toString();
+        }
+    }
+}
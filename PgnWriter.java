@@ -0,0 +1,348 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Schreibt Partien als PGN (Portable Game Notation) mit den sieben Pflicht-Tags (Event, Site, Date, Round,
+ * White, Black, Result) und den Zügen in Standard-Algebraischer Notation (SAN).
+ * <p>
+ * Die Züge kommen aus der Historie des Bretts ({@link Board#getHistoryMove(int)}). Um sie in SAN zu übersetzen,
+ * wird das Brett auf die Ausgangsstellung zurückgenommen und Zug für Zug wieder vorgespielt; danach steht es
+ * wieder in derselben Stellung. Der Text entsteht in einem wiederverwendeten {@link StringBuilder} und geht über
+ * einen Puffer an einen Kanal, damit auch tausende Partien pro Sekunde weder an der Ein-/Ausgabe noch an
+ * Allokationen hängen.
+ * <p>
+ * Mehrere Partien (z.B. aus dem {@link GameSessionManager}) können gleichzeitig in dieselbe Datei archiviert
+ * werden. Der Text entsteht ohne Sperre in einem Arbeitsbereich je Aufruf, der aus einem Vorrat wiederverwendet
+ * wird; nur das Kodieren in den Puffer und das Schreiben in den Kanal sind synchronisiert.
+ */
+public class PgnWriter implements AutoCloseable {
+    /**
+     * Die Zeilenlänge der Züge nach dem PGN-Exportformat.
+     */
+    private static final int LINE_LENGTH = 80;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+    /**
+     * Die freien Arbeitsbereiche; es gibt höchstens so viele, wie gleichzeitig Partien geschrieben wurden.
+     */
+    private final ConcurrentLinkedQueue<Scratch> scratch = new ConcurrentLinkedQueue<>();
+
+    private volatile String event = "?";
+    private volatile String site = "?";
+    private volatile String round = "?";
+    private long games;
+
+    /**
+     * Der Arbeitsbereich für eine Partie: Text, FEN, Zugpuffer und die Züge der Partie.
+     */
+    private static final class Scratch {
+        private final StringBuilder text = new StringBuilder(4096);
+        private final StringBuilder fen = new StringBuilder(90);
+        private final int[] moveBuffer = new int[Move.MAX_MOVES];
+        private int[] history = new int[256];
+    }
+
+    /**
+     * Konstruktor für PgnWriter.
+     *
+     * @param channel Der Kanal, in den geschrieben wird.
+     */
+    public PgnWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Öffnet eine Datei zum Schreiben.
+     *
+     * @param path   Die Datei.
+     * @param append True, um an eine bestehende Datei anzuhängen, sonst wird sie überschrieben.
+     * @return Der Writer.
+     * @throws IOException Wenn die Datei nicht geöffnet werden kann.
+     */
+    public static PgnWriter open(Path path, boolean append) throws IOException {
+        return new PgnWriter(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    /**
+     * Setzt die Tags Event, Site und Round für alle folgenden Partien ("?", wenn unbekannt).
+     *
+     * @param event Die Veranstaltung.
+     * @param site  Der Ort.
+     * @param round Die Runde.
+     */
+    public void setEvent(String event, String site, String round) {
+        this.event = event;
+        this.site = site;
+        this.round = round;
+    }
+
+    /**
+     * Schreibt eine Partie in den Kanal (gepuffert, siehe {@link #flush()}).
+     *
+     * @param board  Das Brett mit der Partie; es darf währenddessen nicht anderweitig verwendet werden.
+     * @param date   Das Datum als "JJJJ.MM.TT" oder null für "????.??.??".
+     * @param white  Der Spieler mit Weiß.
+     * @param black  Der Spieler mit Schwarz.
+     * @param result Das Ergebnis oder null, um es aus der Stellung zu bestimmen.
+     * @throws IOException Wenn nicht geschrieben werden kann.
+     */
+    public void writeGame(Board board, String date, String white, String black, String result) throws IOException {
+        Scratch work = scratch.poll();
+        if (work == null) {
+            work = new Scratch();
+        }
+        try {
+            work.text.setLength(0);
+            appendGame(board, date, white, black, result, work).append('\n');
+            synchronized (this) {
+                write(work.text);
+                games++;
+            }
+        } finally {
+            scratch.offer(work);
+        }
+    }
+
+    /**
+     * Hängt Tags und Züge einer Partie an.
+     */
+    private StringBuilder appendGame(Board board, String date, String white, String black, String result, Scratch work) {
+        StringBuilder out = work.text;
+        StringBuilder fen = work.fen;
+        if (result == null) {
+            result = resultOf(board);
+        }
+        int plies = board.getPly();
+        if (work.history.length < plies) {
+            work.history = new int[Math.max(plies, 2 * work.history.length)];
+        }
+        int[] history = work.history;
+        for (int i = 0; i < plies; i++) {
+            history[i] = board.getHistoryMove(i);
+        }
+
+        int made = 0;
+        for (int i = 0; i < plies; i++) {
+            board.unmakeMove();
+        }
+        try {
+            fen.setLength(0);
+            board.appendFen(fen);
+            appendTag(out, "Event", event);
+            appendTag(out, "Site", site);
+            appendTag(out, "Date", date != null ? date : "????.??.??");
+            appendTag(out, "Round", round);
+            appendTag(out, "White", white);
+            appendTag(out, "Black", black);
+            appendTag(out, "Result", result);
+            if (!Board.START_FEN.contentEquals(fen)) {
+                appendTag(out, "SetUp", "1");
+                appendTag(out, "FEN", fen);
+            }
+            out.append('\n');
+
+            int lineStart = out.length();
+            for (; made < plies; made++) {
+                int tokenStart = out.length();
+                if (board.getSideToMove() == Board.WHITE || made == 0) {
+                    out.append(board.getFullmoveNumber()).append(board.getSideToMove() == Board.WHITE ? ". " : "... ");
+                }
+                appendSan(board, history[made], out, work.moveBuffer);
+                board.makeMove(history[made]);
+                lineStart = wrap(out, lineStart, tokenStart);
+                out.append(' ');
+            }
+            int tokenStart = out.length();
+            out.append(result);
+            wrap(out, lineStart, tokenStart);
+            return out.append('\n');
+        } finally {
+            // Das Brett auch bei einem Fehler wieder in die Stellung der Partie bringen
+            for (; made < plies; made++) {
+                board.makeMove(history[made]);
+            }
+        }
+    }
+
+    /**
+     * Bricht die Zeile vor dem zuletzt angehängten Token um, wenn sie zu lang geworden ist.
+     *
+     * @return Der Anfang der aktuellen Zeile.
+     */
+    private static int wrap(StringBuilder out, int lineStart, int tokenStart) {
+        if (out.length() - lineStart > LINE_LENGTH && tokenStart > lineStart) {
+            out.setCharAt(tokenStart - 1, '\n');
+            return tokenStart;
+        }
+        return lineStart;
+    }
+
+    private static void appendTag(StringBuilder out, String name, CharSequence value) {
+        out.append('[').append(name).append(" \"");
+        if (value == null) {
+            out.append('?');
+        } else {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    out.append('\\');
+                }
+                out.append(c);
+            }
+        }
+        out.append("\"]\n");
+    }
+
+    /**
+     * Hängt einen Zug in SAN an, z.B. "e4", "Nbd7", "exd8=Q+" oder "O-O#".
+     *
+     * @param board      Die Stellung vor dem Zug; sie wird für das Schachzeichen kurz verändert und wiederhergestellt.
+     * @param move       Der legale Zug.
+     * @param out        Das Ziel.
+     * @param moveBuffer Puffer für die legalen Züge.
+     * @return Das Ziel.
+     */
+    private static StringBuilder appendSan(Board board, int move, StringBuilder out, int[] moveBuffer) {
+        int piece = Move.piece(move);
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if ((Move.flags(move) & Move.CASTLING) != 0) {
+            out.append(to > from ? "O-O" : "O-O-O");
+        } else {
+            if (piece == Board.PAWN) {
+                if (Move.isCapture(move)) {
+                    out.append((char) ('a' + from % 8));
+                }
+            } else {
+                out.append("PNBRQK".charAt(piece));
+                appendDisambiguation(board, move, out, moveBuffer);
+            }
+            if (Move.isCapture(move)) {
+                out.append('x');
+            }
+            out.append((char) ('a' + to % 8)).append((char) ('1' + to / 8));
+            if (Move.isPromotion(move)) {
+                out.append('=').append("PNBRQK".charAt(Move.promotion(move)));
+            }
+        }
+        board.makeMove(move);
+        if (board.isInCheck()) {
+            out.append(MoveGenerator.hasLegalMove(board, board.getSideToMove()) ? '+' : '#');
+        }
+        board.unmakeMove();
+        return out;
+    }
+
+    /**
+     * Hängt Linie, Reihe oder beides an, wenn eine gleiche Figur dasselbe Zielfeld erreichen kann.
+     */
+    private static void appendDisambiguation(Board board, int move, StringBuilder out, int[] moveBuffer) {
+        int from = Move.from(move);
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        int count = MoveGenerator.generateMoves(board, moveBuffer);
+        for (int i = 0; i < count; i++) {
+            int other = moveBuffer[i];
+            int otherFrom = Move.from(other);
+            if (Move.piece(other) == Move.piece(move) && Move.to(other) == Move.to(move) && otherFrom != from) {
+                ambiguous = true;
+                sameFile |= otherFrom % 8 == from % 8;
+                sameRank |= otherFrom / 8 == from / 8;
+            }
+        }
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameFile) {
+            out.append((char) ('a' + from % 8));
+        } else if (!sameRank) {
+            out.append((char) ('1' + from / 8));
+        } else {
+            out.append((char) ('a' + from % 8)).append((char) ('1' + from / 8));
+        }
+    }
+
+    /**
+     * Bestimmt das Ergebnis aus der Stellung: Matt, Patt bzw. 50-Züge-Regel oder "*" für eine laufende Partie.
+     */
+    private static String resultOf(Board board) {
+        if (!MoveGenerator.hasLegalMove(board, board.getSideToMove())) {
+            if (!board.isInCheck()) {
+                return "1/2-1/2";
+            }
+            return board.getSideToMove() == Board.WHITE ? "0-1" : "1-0";
+        }
+        return board.getHalfmoveClock() >= 100 ? "1/2-1/2" : "*";
+    }
+
+    /**
+     * Kodiert den Text als UTF-8 in den Puffer und schreibt ihn in den Kanal, sobald er voll ist.
+     */
+    private void write(CharSequence chars) throws IOException {
+        for (int i = 0; i < chars.length(); i++) {
+            if (buffer.remaining() < 4) {
+                drain();
+            }
+            int c = chars.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate((char) c) && i + 1 < chars.length()) {
+                int code = Character.toCodePoint((char) c, chars.charAt(++i));
+                buffer.put((byte) (0xF0 | code >> 18)).put((byte) (0x80 | code >> 12 & 0x3F))
+                      .put((byte) (0x80 | code >> 6 & 0x3F)).put((byte) (0x80 | code & 0x3F));
+            } else {
+                buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Schreibt den Puffer in den Kanal.
+     *
+     * @throws IOException Wenn nicht geschrieben werden kann.
+     */
+    public synchronized void flush() throws IOException {
+        drain();
+    }
+
+    /**
+     * Gibt die Anzahl der geschriebenen Partien zurück.
+     *
+     * @return Die Anzahl.
+     */
+    public synchronized long getGames() {
+        return games;
+    }
+
+    /**
+     * Schreibt den Puffer und schließt den Kanal.
+     *
+     * @throws IOException Wenn nicht geschrieben werden kann.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+}
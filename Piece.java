@@ -17,6 +17,7 @@ public abstract class Piece {
 
     /**
      * Überprüft, ob der vorgeschlagene Zug für diese Figur gültig ist.
+     * Die Methode verändert weder das Brett noch die Figur; ausgeführt wird der Zug von {@link Board#movePiece}.
      *
      * @param board   Das aktuelle Spielbrett.
      * @param fromCol Die Spalte, aus der die Figur gezogen werden soll.
@@ -44,7 +44,6 @@ public class Queen extends Piece {
                     return false;
                 }
             }
-            hasMoved++;
             return true;
         } else if (fromCol == toCol) {
             // Vertikaler Zug
@@ -72,7 +71,6 @@ public class Queen extends Piece {
                     return false;
                 }
             }
-            hasMoved++;
             return true;
         }
         return false;
@@ -55,7 +55,6 @@ public class Rook extends Piece {
         } else {
             return false;
         }
-        hasMoved++;
         return true;
     }
 
@@ -0,0 +1,548 @@
+/**
+ * Eine Suche auf einer eigenen Kopie der Stellung: iterative Vertiefung mit Negamax-Alpha-Beta und
+ * Principal Variation Search. Alle Puffer werden einmal angelegt, während der Suche wird nichts allokiert.
+ * <p>
+ * Bei mehreren Threads (Lazy SMP) hat jeder Thread eine eigene Search mit eigener Stellung, eigenen
+ * Killer- und History-Tabellen; gemeinsam ist nur die Transpositionstabelle. Die Hilfsthreads überspringen
+ * versetzt einzelne Tiefen, damit sie nicht alle denselben Baum durchsuchen.
+ */
+public class Search {
+    /**
+     * Materialwerte je Figurentyp in Centipawns.
+     */
+    static final int[] VALUES = {100, 320, 330, 500, 900, 0};
+
+    /**
+     * Wie oft (in Knoten) die Limits geprüft werden, als Maske.
+     */
+    private static final int CHECK_INTERVAL = 1023;
+    /**
+     * Sicherheitsabstand für das Delta Pruning in der Ruhesuche: ein Schlagzug, der selbst mit diesem Zuschlag
+     * alpha nicht erreicht, wird übergangen.
+     */
+    private static final int DELTA_MARGIN = 200;
+    /**
+     * Reverse Futility Pruning bis zu dieser Resttiefe, mit diesem Abstand je Halbzug.
+     */
+    private static final int FUTILITY_DEPTH = 6;
+    private static final int FUTILITY_MARGIN = 80;
+    /**
+     * Late Move Pruning bis zu dieser Resttiefe, nach {@code LATE_MOVE_COUNT[depth]} ruhigen Zügen.
+     */
+    private static final int LATE_MOVE_DEPTH = 3;
+    private static final int[] LATE_MOVE_COUNT = {0, 5, 8, 13};
+    /**
+     * Reduktion für Late Move Reductions je Resttiefe und Nummer des Zuges.
+     */
+    private static final int[][] REDUCTIONS = new int[64][64];
+
+    static {
+        for (int depth = 1; depth < 64; depth++) {
+            for (int move = 1; move < 64; move++) {
+                REDUCTIONS[depth][move] = (int) (0.75 + Math.log(depth) * Math.log(move) / 2.25);
+            }
+        }
+    }
+
+    /**
+     * Versatz der Tiefen für die Hilfsthreads: Thread i überspringt Tiefe d,
+     * wenn {@code ((d + SKIP_PHASE[i]) / SKIP_SIZE[i]) % 2 != 0}.
+     */
+    private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+    private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    private final Engine engine;
+    private final Board board;
+    private final TranspositionTable table;
+    private final Evaluator evaluator = new Evaluator();
+    private final boolean nullMove;
+    private final boolean lateMoveReduction;
+    private final boolean reverseFutility;
+    private final boolean lateMovePruning;
+    private final long startNanos = System.nanoTime();
+    /**
+     * Die Nummer des Threads, 0 ist der Hauptthread, der die Ergebnisse meldet.
+     */
+    private final int id;
+
+    /**
+     * Die Zugauswahl je Halbzug.
+     */
+    private final MovePicker[] pickers = new MovePicker[Engine.MAX_PLY];
+    /**
+     * Die bereits probierten ruhigen Züge je Halbzug, um sie nach einem Beta-Schnitt abzuwerten.
+     */
+    private final int[][] quietsTried = new int[Engine.MAX_PLY][Move.MAX_MOVES];
+    /**
+     * Die Hauptvariante je Halbzug (Dreieckstabelle).
+     */
+    private final int[][] pv = new int[Engine.MAX_PLY][Engine.MAX_PLY];
+    private final int[] pvLength = new int[Engine.MAX_PLY];
+    /**
+     * Je Halbzug zwei ruhige Züge, die zuletzt einen Beta-Schnitt verursacht haben.
+     */
+    private final int[][] killers = new int[Engine.MAX_PLY][2];
+    /**
+     * Erfolg ruhiger Züge je Farbe, Start- und Zielfeld.
+     */
+    private final int[][][] history = new int[2][64][64];
+    /**
+     * Der ruhige Zug, der zuletzt einen Beta-Schnitt als Antwort auf einen Zug verursacht hat,
+     * je Farbe, Figurentyp und Zielfeld dieses Zuges.
+     */
+    private final int[][][] counterMoves = new int[2][6][64];
+
+    /**
+     * Obergrenze der History-Werte; neue Boni werden zur Grenze hin gedämpft.
+     */
+    private static final int HISTORY_MAX = 16384;
+
+    private long nodes;
+    private boolean stopped;
+    /**
+     * Anzahl der Beta-Schnitte und davon beim ersten probierten Zug, als Maß für die Zugsortierung.
+     */
+    private long cutoffs;
+    private long firstMoveCutoffs;
+    // Zähler der selektiven Verfahren
+    private long nullMoves;
+    private long nullMoveCutoffs;
+    private long reductions;
+    private long reSearches;
+    private long futilityCutoffs;
+    private long lateMovesPruned;
+
+    /**
+     * Konstruktor für Search.
+     *
+     * @param engine   Die Engine mit Limits, Tabelle und Listener.
+     * @param board    Die Stellung, wird während der Suche verändert und danach wiederhergestellt.
+     * @param id       Die Nummer des Threads, 0 für den Hauptthread.
+     */
+    public Search(Engine engine, Board board, int id) {
+        this.engine = engine;
+        this.id = id;
+        this.board = board;
+        this.table = engine.getTable();
+        this.nullMove = engine.isEnabled(Engine.Pruning.NULL_MOVE);
+        this.lateMoveReduction = engine.isEnabled(Engine.Pruning.LATE_MOVE_REDUCTION);
+        this.reverseFutility = engine.isEnabled(Engine.Pruning.REVERSE_FUTILITY);
+        this.lateMovePruning = engine.isEnabled(Engine.Pruning.LATE_MOVE_PRUNING);
+        for (int ply = 0; ply < Engine.MAX_PLY; ply++) {
+            pickers[ply] = new MovePicker();
+        }
+    }
+
+    /**
+     * Sucht mit iterativer Vertiefung, bis die Tiefe erreicht ist oder ein Limit greift.
+     *
+     * @param maxDepth Die maximale Tiefe.
+     * @return Das Ergebnis der letzten abgeschlossenen Iteration.
+     */
+    public Engine.Info iterate(int maxDepth) {
+        Engine.Info best = new Engine.Info(0, 0, 0, 0, firstLegalMove());
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            if (id > 0 && depth > 1) {
+                int i = (id - 1) % SKIP_SIZE.length;
+                if ((depth + SKIP_PHASE[i]) / SKIP_SIZE[i] % 2 != 0) {
+                    continue;
+                }
+            }
+            int score = negamax(depth, 0, -Engine.INFINITY, Engine.INFINITY);
+            // Eine abgebrochene Iteration ist unvollständig, ihr Zug wird nicht übernommen
+            if (stopped && depth > 1) {
+                break;
+            }
+            int[] line = new int[pvLength[0]];
+            System.arraycopy(pv[0], 0, line, 0, line.length);
+            if (line.length == 0) {
+                break; // Kein legaler Zug
+            }
+            best = new Engine.Info(depth, score, engine.getNodes(), System.nanoTime() - startNanos, line);
+            if (id == 0) {
+                engine.report(best);
+                engine.getTimeManager().onIteration(best.getBestMove());
+                if (!engine.getTimeManager().canStartIteration()) {
+                    break;
+                }
+            }
+            if (stopped || Math.abs(score) >= Engine.MATE - depth) {
+                break; // Ein kürzeres Matt kann es nicht mehr geben
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Negamax mit Alpha-Beta. Der erste Zug wird mit vollem Fenster gesucht, alle weiteren zunächst mit
+     * einem Nullfenster und nur bei einer Verbesserung erneut mit vollem Fenster.
+     * <p>
+     * Außerhalb der Hauptvariante und nicht im Schach werden Knoten per Reverse Futility Pruning und
+     * Nullzug abgeschnitten, späte ruhige Züge reduziert (LMR) oder nahe den Blättern übergangen (LMP),
+     * jeweils wenn in der {@link Engine} eingeschaltet.
+     *
+     * @return Die Bewertung aus Sicht der Seite am Zug.
+     */
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = 0;
+        if ((++nodes & CHECK_INTERVAL) == 0) {
+            checkNodeLimit();
+        }
+        // Das Flag wird vom Zeitgeber, vom Hauptthread oder von außen gesetzt
+        if (engine.isStopped()) {
+            stopped = true;
+            return 0;
+        }
+        if (ply > 0 && (board.getHalfmoveClock() >= 100 || board.isRepetition())) {
+            return 0;
+        }
+        if (depth <= 0) {
+            return quiescence(ply, alpha, beta);
+        }
+        if (ply >= Engine.MAX_PLY - 1) {
+            return evaluator.evaluate(board);
+        }
+
+        boolean pvNode = beta - alpha > 1;
+        long hash = board.hash();
+        long entry = table.probe(hash);
+        int ttMove = Move.NONE;
+        if (entry != 0) {
+            ttMove = TranspositionTable.move(entry);
+            if (!pvNode && ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || bound == TranspositionTable.LOWER && score >= beta
+                        || bound == TranspositionTable.UPPER && score <= alpha) {
+                    return score;
+                }
+            }
+        }
+
+        boolean inCheck = board.isInCheck();
+        int us = board.getSideToMove();
+        if (!pvNode && !inCheck && ply > 0 && Math.abs(beta) < Engine.MATE - Engine.MAX_PLY) {
+            int staticEval = evaluator.evaluate(board, alpha, beta);
+            if (reverseFutility && depth <= FUTILITY_DEPTH && staticEval - FUTILITY_MARGIN * depth >= beta) {
+                futilityCutoffs++;
+                return staticEval;
+            }
+            // Kein Nullzug direkt nach einem Nullzug und nicht ohne Figuren (Zugzwang)
+            if (nullMove && depth >= 3 && staticEval >= beta && board.getLastMove() != Move.NONE && hasPieces(us)) {
+                int reduction = 3 + depth / 6;
+                nullMoves++;
+                board.makeNullMove();
+                int score = -negamax(depth - 1 - reduction, ply + 1, -beta, -beta + 1);
+                board.unmakeNullMove();
+                if (stopped) {
+                    return 0;
+                }
+                if (score >= beta) {
+                    nullMoveCutoffs++;
+                    // Ein Matt nach einem Nullzug ist nicht bewiesen
+                    return score >= Engine.MATE - Engine.MAX_PLY ? beta : score;
+                }
+            }
+        }
+
+        MovePicker picker = pickers[ply];
+        if (picker.init(board, ttMove, killers[ply][0], killers[ply][1], counterMove(), history[us]) == 0) {
+            return inCheck ? -Engine.MATE + ply : 0;
+        }
+
+        int originalAlpha = alpha;
+        int bestScore = -Engine.INFINITY;
+        int bestMove = Move.NONE;
+        int searched = 0;
+        int quiets = 0;
+        int move;
+        while ((move = picker.next()) != Move.NONE) {
+            boolean quiet = !MovePicker.isTactical(move);
+            if (lateMovePruning && quiet && !pvNode && !inCheck && depth <= LATE_MOVE_DEPTH
+                    && quiets >= LATE_MOVE_COUNT[depth] && bestScore > -Engine.MATE + Engine.MAX_PLY) {
+                lateMovesPruned++;
+                continue;
+            }
+            searched++;
+            board.makeMove(move);
+            int score;
+            if (searched == 1) {
+                score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            } else {
+                int reduction = 0;
+                if (lateMoveReduction && quiet && depth >= 3 && searched > 3 && !inCheck && !board.isInCheck()) {
+                    reduction = REDUCTIONS[Math.min(depth, 63)][Math.min(searched, 63)] - (pvNode ? 1 : 0);
+                    reduction = Math.max(0, Math.min(reduction, depth - 2));
+                }
+                if (reduction > 0) {
+                    reductions++;
+                    score = -negamax(depth - 1 - reduction, ply + 1, -alpha - 1, -alpha);
+                    if (score > alpha) {
+                        reSearches++;
+                        score = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha);
+                    }
+                } else {
+                    score = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha);
+                }
+                if (score > alpha && score < beta) {
+                    score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+                }
+            }
+            board.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        cutoffs++;
+                        if (searched == 1) {
+                            firstMoveCutoffs++;
+                        }
+                        if (quiet) {
+                            updateQuietStats(move, ply, depth, quietsTried[ply], quiets);
+                        }
+                        break;
+                    }
+                }
+            }
+            if (quiet) {
+                quietsTried[ply][quiets++] = move;
+            }
+        }
+
+        int bound = bestScore >= beta ? TranspositionTable.LOWER
+                : bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(hash, bestMove, toTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    /**
+     * Ruhesuche: am Ende der regulären Tiefe werden nur noch Schlagzüge durchsucht, bis die Stellung ruhig ist,
+     * damit kein Abtausch mittendrin bewertet wird. Die Seite am Zug darf die statische Bewertung annehmen
+     * (Stand Pat); Schlagzüge mit negativem Abtausch und solche, die alpha auch mit {@link #DELTA_MARGIN}
+     * nicht erreichen, werden übergangen. Im Schach werden alle Züge durchsucht.
+     *
+     * @return Die Bewertung aus Sicht der Seite am Zug.
+     */
+    private int quiescence(int ply, int alpha, int beta) {
+        pvLength[ply] = 0;
+        if ((++nodes & CHECK_INTERVAL) == 0) {
+            checkNodeLimit();
+        }
+        if (engine.isStopped()) {
+            stopped = true;
+            return 0;
+        }
+        if (ply >= Engine.MAX_PLY - 1) {
+            return evaluator.evaluate(board);
+        }
+
+        boolean inCheck = board.isInCheck();
+        int standPat = -Engine.INFINITY;
+        int bestScore = -Engine.INFINITY;
+        if (!inCheck) {
+            standPat = evaluator.evaluate(board, alpha, beta);
+            if (standPat >= beta) {
+                return standPat;
+            }
+            alpha = Math.max(alpha, standPat);
+            bestScore = standPat;
+        }
+
+        MovePicker picker = pickers[ply];
+        if (picker.initQuiescence(board, inCheck, history[board.getSideToMove()]) == 0) {
+            return inCheck ? -Engine.MATE + ply : 0;
+        }
+        int move;
+        while ((move = picker.next()) != Move.NONE) {
+            if (!inCheck && !Move.isPromotion(move) && standPat + VALUES[Move.captured(move)] + DELTA_MARGIN <= alpha) {
+                continue;
+            }
+            board.makeMove(move);
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            board.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    /**
+     * Überprüft, ob eine Farbe außer König und Bauern noch Figuren hat.
+     */
+    private boolean hasPieces(int color) {
+        return (board.getOccupancy(color) & ~board.getBitboard(color, Board.PAWN) & ~board.getBitboard(color, Board.KING)) != 0;
+    }
+
+    /**
+     * Merkt sich einen ruhigen Zug, der einen Beta-Schnitt verursacht hat, als Killer, als Gegenzug auf den
+     * letzten Zug und in der History; die vorher erfolglos probierten ruhigen Züge werden abgewertet.
+     */
+    private void updateQuietStats(int move, int ply, int depth, int[] tried, int triedCount) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int last = board.getLastMove();
+        if (last != Move.NONE) {
+            counterMoves[1 - board.getSideToMove()][Move.piece(last)][Move.to(last)] = move;
+        }
+        int[][] table = history[board.getSideToMove()];
+        int bonus = Math.min(depth * depth, 400);
+        addHistory(table, move, bonus);
+        for (int i = 0; i < triedCount; i++) {
+            addHistory(table, tried[i], -bonus);
+        }
+    }
+
+    /**
+     * Addiert einen Bonus zur History; je näher der Wert an {@link #HISTORY_MAX} liegt, desto weniger.
+     */
+    private static void addHistory(int[][] table, int move, int bonus) {
+        int[] row = table[Move.from(move)];
+        int to = Move.to(move);
+        row[to] += bonus - row[to] * Math.abs(bonus) / HISTORY_MAX;
+    }
+
+    /**
+     * Gibt den gespeicherten Gegenzug auf den letzten Zug zurück.
+     */
+    private int counterMove() {
+        int last = board.getLastMove();
+        if (last == Move.NONE) {
+            return Move.NONE;
+        }
+        return counterMoves[1 - board.getSideToMove()][Move.piece(last)][Move.to(last)];
+    }
+
+    /**
+     * Übernimmt den Zug und die Hauptvariante des nächsten Halbzugs.
+     */
+    private void updatePv(int ply, int move) {
+        pv[ply][0] = move;
+        System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+        pvLength[ply] = pvLength[ply + 1] + 1;
+    }
+
+    /**
+     * Hält alle Threads an, wenn die Knotenzahl erschöpft ist. Nur der Hauptthread prüft das;
+     * die Zeit überwacht der {@link TimeManager}.
+     */
+    private void checkNodeLimit() {
+        if (id == 0 && engine.getNodes() >= engine.getMaxNodes()) {
+            engine.stop();
+        }
+    }
+
+    /**
+     * Gibt einen legalen Zug zurück, damit auch bei sofortigem Abbruch ein Zug vorliegt.
+     */
+    private int[] firstLegalMove() {
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = MoveGenerator.generateMoves(board, moves);
+        return count == 0 ? new int[0] : new int[] {moves[0]};
+    }
+
+    /**
+     * Mattbewertungen werden in der Tabelle relativ zur Stellung gespeichert, nicht zur Wurzel.
+     */
+    private static int toTable(int score, int ply) {
+        if (score >= Engine.MATE - Engine.MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -Engine.MATE + Engine.MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= Engine.MATE - Engine.MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -Engine.MATE + Engine.MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * Gibt die Anzahl der besuchten Knoten zurück.
+     *
+     * @return Die Knotenzahl.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gibt die Bewertungsfunktion dieses Threads zurück, z.B. für ihre Statistik.
+     *
+     * @return Der Evaluator.
+     */
+    public Evaluator getEvaluator() {
+        return evaluator;
+    }
+
+    // Die Zähler der selektiven Verfahren, siehe Engine#describePruning()
+
+    public long getNullMoves() {
+        return nullMoves;
+    }
+
+    public long getNullMoveCutoffs() {
+        return nullMoveCutoffs;
+    }
+
+    public long getReductions() {
+        return reductions;
+    }
+
+    public long getReSearches() {
+        return reSearches;
+    }
+
+    public long getFutilityCutoffs() {
+        return futilityCutoffs;
+    }
+
+    public long getLateMovesPruned() {
+        return lateMovesPruned;
+    }
+
+    /**
+     * Gibt die Anzahl der Beta-Schnitte zurück.
+     *
+     * @return Die Anzahl.
+     */
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    /**
+     * Gibt die Anzahl der Beta-Schnitte beim ersten probierten Zug zurück.
+     *
+     * @return Die Anzahl.
+     */
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+}
@@ -8,6 +8,7 @@ import java.util.ArrayList;
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.plaf.DimensionUIResource;
 
 import java.awt.*;
@@ -17,7 +18,11 @@ public class Table {
     // wichtige Variablen
     private final JFrame gameFrame;
     final BoardPanel boardPanel;
-    private final Board chessBoard;
+    private Board chessBoard;
+    // Computergegner (null, wenn zwei Menschen spielen), seine Farbe und ob er gerade rechnet
+    private Engine engine;
+    private int computerColor;
+    private boolean computerThinking;
 
     // Farben für die Spielbrettfelder
     private final Color lightTileColor = Color.decode("#EEEED2");
@@ -68,15 +73,24 @@ public class Table {
     private JMenu createFileMenu() {
         final JMenu fileMenu = new JMenu("Datei");
 
-        final JMenuItem openPGN = new JMenuItem("PGN-Datei laden"); // TODO: PGN import und export 
+        final JMenuItem openPGN = new JMenuItem("PGN-Datei laden");
         openPGN.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                System.out.println("PGN-Datei öffnen");
+                loadPgn();
             }
         });
         fileMenu.add(openPGN);
 
+        final JMenuItem savePGN = new JMenuItem("PGN-Datei speichern");
+        savePGN.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                savePgn();
+            }
+        });
+        fileMenu.add(savePGN);
+
         final JMenuItem exitMenuItem = new JMenuItem("Beenden");
         exitMenuItem.addActionListener(new ActionListener() {
             @Override
@@ -88,6 +102,59 @@ public class Table {
         return fileMenu;
     }
 
+    /**
+     * Lädt die erste Partie einer PGN-Datei und zeigt die Stellung nach ihrem letzten Zug.
+     */
+    private void loadPgn() {
+        if (computerThinking) {
+            return; // Das Brett gehört gerade der Suche
+        }
+        final JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("PGN-Dateien", "pgn"));
+        if (chooser.showOpenDialog(gameFrame) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            PgnReader.Game game = PgnReader.readFirst(chooser.getSelectedFile().toPath());
+            if (game == null) {
+                JOptionPane.showMessageDialog(gameFrame, "Die Datei enthält keine gültige Partie.");
+                return;
+            }
+            chessBoard = game.toBoard();
+            boardPanel.setSelectedSquare("");
+            String white = game.getTag("White");
+            String black = game.getTag("Black");
+            gameFrame.setTitle("JChess - " + (white != null ? white : "?") + " - " + (black != null ? black : "?") + " " + game.getResult());
+            afterMove();
+            startComputerMove();
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(gameFrame, "Die Datei konnte nicht gelesen werden: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Speichert die laufende Partie als PGN-Datei.
+     */
+    private void savePgn() {
+        if (computerThinking) {
+            return; // Das Brett gehört gerade der Suche
+        }
+        final JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("PGN-Dateien", "pgn"));
+        if (chooser.showSaveDialog(gameFrame) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        if (!file.getName().contains(".")) {
+            file = new File(file.getParentFile(), file.getName() + ".pgn");
+        }
+        try (PgnWriter writer = PgnWriter.open(file.toPath(), false)) {
+            writer.writeGame(chessBoard, null, "?", "?", null);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(gameFrame, "Die Datei konnte nicht geschrieben werden: " + e.getMessage());
+        }
+    }
+
     /**
      * Innere Klasse für das Spielfeldpanel.
      */
@@ -248,12 +315,75 @@ public class Table {
         }
     }
 
+    /**
+     * Lässt den Computer mit der angegebenen Farbe gegen den Spieler antreten.
+     *
+     * @param engine Der Computergegner.
+     * @param color  Die Farbe des Computers (0 für Weiß, 1 für Schwarz).
+     */
+    public void setComputer(Engine engine, int color) {
+        this.engine = engine;
+        this.computerColor = color;
+        startComputerMove();
+    }
+
+    /**
+     * Startet die Suche des Computers in einem Hintergrund-Thread, falls er am Zug ist,
+     * damit die Oberfläche währenddessen bedienbar bleibt.
+     */
+    private void startComputerMove() {
+        if (engine == null || chessBoard.getSideToMove() != computerColor || !chessBoard.hasAnyLegalMove(computerColor == 0 ? "white" : "black")) {
+            return;
+        }
+        computerThinking = true;
+        gameFrame.setTitle("JChess - Der Computer denkt nach...");
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return engine.search(chessBoard);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    chessBoard.playMove(get());
+                    gameFrame.setTitle("JChess");
+                    afterMove();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    computerThinking = false;
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Zeichnet die Figuren nach einem Zug neu und meldet Matt oder Patt.
+     */
+    private void afterMove() {
+        // Icon-Update nach einem Zug; bei Rochade und en passant ändern sich auch andere Felder
+        for (TilePanel tilePanel : boardPanel.boardTiles) {
+            tilePanel.assignTilePieceIcon(chessBoard);
+        }
+
+        int opponent = chessBoard.getSideToMove();
+        if (chessBoard.isCheckmate(Board.colorName(opponent))) {
+            JOptionPane.showMessageDialog(gameFrame, "Schachmatt! " + (opponent == Board.WHITE ? "Schwarz" : "Weiss") + " gewinnt!");
+        } else if (chessBoard.isStalemate()) {
+            JOptionPane.showMessageDialog(gameFrame, "Patt!");
+        }
+    }
+
     private void handleTileClick(String moveString) {
         /**
          * Diese Methode verarbeitet einen Klick auf ein Feld und führt den entsprechenden Zug aus.
          *
          * @param moveString Der Zugstring, der die Start- und Zielfelder angibt.
          */
+        if (computerThinking) {
+            return; // Während der Computer rechnet, wird nicht gezogen
+        }
         parseMoveString(moveString);
         boardPanel.repaint();
     }
@@ -272,22 +402,12 @@ public class Table {
         int toRow = 8 - Integer.parseInt(toSquare.substring(1));
         int toCol = toSquare.charAt(0) - 'a';
     
-        String playerTurn;
-        if (Main.getCurrentTurn() == 0) {
-            playerTurn = "white";
-        } else {
-            playerTurn = "black";
-        }
+        String playerTurn = Board.colorName(chessBoard.getSideToMove());
     
         try {
             chessBoard.movePiece(fromCol, fromRow, toCol, toRow, playerTurn);
-            Main.currentTurn = 1 - Main.currentTurn;
-    
-            // Icon-Update nach einem Zug; TODO: Rocharden und En passant BUG lösen
-            int fromTileId = (7 - fromRow) * 8 + fromCol;
-            int toTileId = (7 - toRow) * 8 + toCol;
-            boardPanel.boardTiles.get(fromTileId).assignTilePieceIcon(chessBoard);
-            boardPanel.boardTiles.get(toTileId).assignTilePieceIcon(chessBoard);
+            afterMove();
+            startComputerMove();
         } catch (InvalidMoveException e) {
             e.printStackTrace();
         }
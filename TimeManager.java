@@ -0,0 +1,234 @@
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Teilt die Bedenkzeit für einen Zug ein. Aus Restzeit, Inkrement und Zügen bis zur nächsten Zeitkontrolle
+ * werden zwei Grenzen berechnet:
+ * <ul>
+ *     <li>die weiche Grenze: danach wird keine neue Iteration mehr begonnen. Wechselt der beste Zug zwischen
+ *     den Iterationen, wird sie bis auf das Doppelte verlängert.</li>
+ *     <li>die harte Grenze: dann setzt ein Zeitgeber das Stopp-Flag der Engine, das die Suche in jedem Knoten
+ *     abfragt. Die Suche gibt dann den besten Zug der letzten abgeschlossenen Iteration zurück.</li>
+ * </ul>
+ * Gezählt wird, wie oft die harte Grenze erreicht wurde, damit die Zeiteinteilung abgestimmt werden kann.
+ */
+public class TimeManager {
+    /**
+     * Angenommene Anzahl an Zügen bis zur nächsten Zeitkontrolle, wenn keine angegeben ist.
+     */
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+    /**
+     * Sicherheitsabstand in Millisekunden für die Verzögerung zwischen Suche und Zugausgabe.
+     */
+    private static final long MOVE_OVERHEAD = 20;
+
+    /**
+     * Ein Zeitgeber-Thread für alle TimeManager; er setzt nur Flags und beendet das Programm nicht.
+     */
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Zeitgeber");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Die Vorgaben für die nächste Suche (in Millisekunden, -1 für keine)
+    private long moveTime = -1;
+    private long remaining = -1;
+    private long increment;
+    private int movesToGo;
+
+    // Die Grenzen der laufenden Suche (in Nanosekunden ab dem Start); ponderhit setzt sie aus einem anderen Thread
+    private volatile long startNanos;
+    private volatile long softNanos = Long.MAX_VALUE;
+    private volatile long hardNanos = Long.MAX_VALUE;
+    private volatile ScheduledFuture<?> hardStop;
+    /**
+     * Zählt die Suchen, damit ein verspäteter Zeitgeber keine spätere Suche abbricht.
+     */
+    private final AtomicInteger generation = new AtomicInteger();
+
+    // Stabilität des besten Zuges
+    private int lastBestMove = Move.NONE;
+    private double instability;
+
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong hardLimitHits = new AtomicLong();
+
+    /**
+     * Verwendet für jeden Zug eine feste Zeit. Sie ist die harte Grenze; die weiche Grenze liegt bei der Hälfte,
+     * weil eine neue Iteration meist länger dauert als alle vorherigen zusammen und sonst fast immer
+     * abgebrochen würde.
+     *
+     * @param millis Die Zeit in Millisekunden, 0 für unbegrenzt.
+     */
+    public void setMoveTime(long millis) {
+        moveTime = millis > 0 ? millis : -1;
+        remaining = -1;
+    }
+
+    /**
+     * Verwendet eine Schachuhr.
+     *
+     * @param remaining Die Restzeit in Millisekunden.
+     * @param increment Das Inkrement je Zug in Millisekunden.
+     * @param movesToGo Die Züge bis zur nächsten Zeitkontrolle, 0 wenn unbekannt.
+     */
+    public void setClock(long remaining, long increment, int movesToGo) {
+        this.remaining = Math.max(0, remaining);
+        this.increment = Math.max(0, increment);
+        this.movesToGo = movesToGo;
+        moveTime = -1;
+    }
+
+    /**
+     * Sucht ohne Zeitbegrenzung (nur Tiefe, Knoten oder {@link Engine#stop()}).
+     */
+    public void setInfinite() {
+        moveTime = -1;
+        remaining = -1;
+    }
+
+    /**
+     * Berechnet die Grenzen und startet den Zeitgeber für die harte Grenze.
+     * Beim Pondern gibt es bis {@link #ponderhit(Engine)} keine Grenzen.
+     *
+     * @param engine Die Engine, deren Stopp-Flag bei der harten Grenze gesetzt wird.
+     * @param ponder True für eine Ponder-Suche.
+     */
+    void start(Engine engine, boolean ponder) {
+        startNanos = System.nanoTime();
+        lastBestMove = Move.NONE;
+        instability = 0;
+        searches.incrementAndGet();
+        // Ein Zeitgeber aus einem späten ponderhit der vorigen Suche darf diese nicht abbrechen
+        generation.incrementAndGet();
+        if (ponder) {
+            softNanos = hardNanos = Long.MAX_VALUE;
+            return;
+        }
+        schedule(engine);
+    }
+
+    /**
+     * Startet die Uhr einer laufenden Ponder-Suche, die Zeit zählt ab jetzt.
+     *
+     * @param engine Die Engine, deren Stopp-Flag bei der harten Grenze gesetzt wird.
+     */
+    void ponderhit(Engine engine) {
+        startNanos = System.nanoTime();
+        schedule(engine);
+    }
+
+    /**
+     * Berechnet die Grenzen aus den Vorgaben und startet den Zeitgeber.
+     */
+    private void schedule(Engine engine) {
+        if (moveTime > 0) {
+            hardNanos = TimeUnit.MILLISECONDS.toNanos(moveTime);
+            softNanos = hardNanos / 2;
+        } else if (remaining >= 0) {
+            long usable = Math.max(1, remaining - MOVE_OVERHEAD);
+            int moves = movesToGo > 0 ? Math.min(movesToGo, 50) : DEFAULT_MOVES_TO_GO;
+            long target = usable / moves + increment * 3 / 4;
+            long hard = Math.min(target * 3, usable * 4 / 5);
+            hardNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, hard));
+            softNanos = Math.min(hardNanos, TimeUnit.MILLISECONDS.toNanos(Math.max(1, target * 3 / 5)));
+        } else {
+            softNanos = hardNanos = Long.MAX_VALUE;
+            return;
+        }
+        int id = generation.incrementAndGet();
+        hardStop = TIMER.schedule(() -> {
+            if (generation.get() == id) {
+                hardLimitHits.incrementAndGet();
+                engine.stop();
+            }
+        }, hardNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Beendet die Zeitmessung der laufenden Suche.
+     */
+    void finish() {
+        generation.incrementAndGet();
+        if (hardStop != null) {
+            hardStop.cancel(false);
+            hardStop = null;
+        }
+    }
+
+    /**
+     * Merkt sich den besten Zug einer abgeschlossenen Iteration. Wechselt er, wird die weiche Grenze verlängert;
+     * der Effekt klingt mit jeder Iteration ab.
+     *
+     * @param bestMove Der beste Zug der Iteration.
+     */
+    void onIteration(int bestMove) {
+        instability = instability / 2 + (lastBestMove != Move.NONE && bestMove != lastBestMove ? 1 : 0);
+        lastBestMove = bestMove;
+    }
+
+    /**
+     * Überprüft, ob nach einer Iteration noch eine weitere begonnen werden soll.
+     *
+     * @return False, wenn die (verlängerte) weiche Grenze überschritten ist.
+     */
+    boolean canStartIteration() {
+        if (softNanos == Long.MAX_VALUE) {
+            return true;
+        }
+        double factor = 1 + Math.min(1, instability);
+        return System.nanoTime() - startNanos < Math.min(hardNanos, (long) (softNanos * factor));
+    }
+
+    /**
+     * Gibt die weiche Grenze der laufenden Suche zurück.
+     *
+     * @return Die Zeit in Millisekunden oder {@link Long#MAX_VALUE}.
+     */
+    public long getSoftMillis() {
+        return softNanos == Long.MAX_VALUE ? Long.MAX_VALUE : softNanos / 1_000_000;
+    }
+
+    /**
+     * Gibt die harte Grenze der laufenden Suche zurück.
+     *
+     * @return Die Zeit in Millisekunden oder {@link Long#MAX_VALUE}.
+     */
+    public long getHardMillis() {
+        return hardNanos == Long.MAX_VALUE ? Long.MAX_VALUE : hardNanos / 1_000_000;
+    }
+
+    /**
+     * Gibt zurück, wie oft die harte Grenze erreicht und die Suche abgebrochen wurde.
+     *
+     * @return Die Anzahl.
+     */
+    public long getHardLimitHits() {
+        return hardLimitHits.get();
+    }
+
+    /**
+     * Gibt die Anzahl der Suchen zurück.
+     *
+     * @return Die Anzahl.
+     */
+    public long getSearches() {
+        return searches.get();
+    }
+
+    /**
+     * Beschreibt, wie oft die harte Grenze erreicht wurde.
+     *
+     * @return Die Beschreibung.
+     */
+    public String describe() {
+        long total = searches.get();
+        return String.format("Zeitsteuerung: %d Suchen, harte Grenze %d-mal erreicht (%.1f %%)",
+                total, hardLimitHits.get(), total == 0 ? 0.0 : 100.0 * hardLimitHits.get() / total);
+    }
+}
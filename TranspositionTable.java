@@ -0,0 +1,260 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transpositionstabelle für die Suche, außerhalb des Java-Heaps in direkten {@link ByteBuffer}n gespeichert,
+ * damit auch große Tabellen keine Objekte anlegen und den Garbage Collector nicht belasten.
+ * <p>
+ * Jeder Eintrag ist 16 Byte groß: die gepackten Daten (Zug, Bewertung, Tiefe, Schranke, Alter) und
+ * {@code Schlüssel ^ Daten}. Wie bei {@link PerftCache} passt ein von einem anderen Thread halb
+ * überschriebener Eintrag beim Lesen nicht mehr zum Schlüssel und zählt als Fehltreffer, daher kommt
+ * die Tabelle ohne Sperren aus.
+ * <p>
+ * Zwei Einträge bilden einen Bucket: der erste wird nur durch tiefere Suchen (oder Einträge aus einer
+ * früheren Suche) ersetzt, der zweite wird immer überschrieben.
+ */
+public class TranspositionTable {
+    /**
+     * Art der gespeicherten Bewertung: obere Schranke (kein Zug erreichte alpha).
+     */
+    public static final int UPPER = 1;
+    /**
+     * Art der gespeicherten Bewertung: untere Schranke (Beta-Schnitt).
+     */
+    public static final int LOWER = 2;
+    /**
+     * Art der gespeicherten Bewertung: exakter Wert.
+     */
+    public static final int EXACT = 3;
+
+    /**
+     * Größe eines Eintrags und eines Buckets in Byte.
+     */
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET_BYTES = 2 * ENTRY_BYTES;
+    /**
+     * Buckets je Puffer (1 GB), da ein einzelner {@link ByteBuffer} höchstens 2 GB adressieren kann.
+     */
+    private static final int SEGMENT_SHIFT = 25;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    /**
+     * Gepackte Daten: Zug in Bit 0-23, Bewertung in Bit 24-39 (mit Vorzeichen), Tiefe in Bit 40-47,
+     * Schranke in Bit 48-49 und Alter in Bit 50-55.
+     */
+    private static final int SCORE_SHIFT = 24;
+    private static final int DEPTH_SHIFT = 40;
+    private static final int BOUND_SHIFT = 48;
+    private static final int AGE_SHIFT = 50;
+    private static final int AGE_MASK = 63;
+
+    /**
+     * Zugriff auf die Puffer als {@code long} mit Opaque-Semantik.
+     */
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    /**
+     * Die Puffer, jeweils höchstens 2^{@value #SEGMENT_SHIFT} Buckets.
+     */
+    private final ByteBuffer[] segments;
+    /**
+     * Maske für den Bucket-Index (Anzahl der Buckets minus 1).
+     */
+    private final long mask;
+    /**
+     * Die Größe in MB.
+     */
+    private final int megabytes;
+    /**
+     * Das Alter der aktuellen Suche; Einträge älterer Suchen werden bevorzugt ersetzt.
+     */
+    private volatile int age;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+
+    /**
+     * Legt eine Tabelle mit der angegebenen Größe an.
+     *
+     * @param megabytes Die Größe in MB, wird auf eine Zweierpotenz an Buckets abgerundet.
+     */
+    public TranspositionTable(int megabytes) {
+        long buckets = Long.highestOneBit(Math.max(1L, (long) megabytes * 1024 * 1024 / BUCKET_BYTES));
+        this.megabytes = (int) Math.max(1, buckets * BUCKET_BYTES >> 20);
+        mask = buckets - 1;
+        int count = (int) Math.max(1, buckets >>> SEGMENT_SHIFT);
+        segments = new ByteBuffer[count];
+        long perSegment = Math.min(buckets, 1L << SEGMENT_SHIFT);
+        for (int i = 0; i < count; i++) {
+            // Auf eine Cache-Line ausrichten, damit kein Bucket über zwei Lines verteilt ist
+            int bytes = (int) (perSegment * BUCKET_BYTES);
+            segments[i] = ByteBuffer.allocateDirect(bytes + 64).alignedSlice(64).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Sucht eine Stellung in der Tabelle.
+     *
+     * @param hash Der Zobrist-Schlüssel der Stellung ({@link Board#hash()}).
+     * @return Die gepackten Daten des Eintrags oder 0, wenn die Stellung nicht gespeichert ist;
+     *         auslesen mit {@link #move(long)}, {@link #score(long)}, {@link #depth(long)} und {@link #bound(long)}.
+     */
+    public long probe(long hash) {
+        probes.increment();
+        ByteBuffer segment = segments[(int) ((hash & mask) >>> SEGMENT_SHIFT)];
+        int offset = (int) (hash & mask & SEGMENT_MASK) * BUCKET_BYTES;
+        for (int slot = 0; slot < 2; slot++) {
+            int entry = offset + slot * ENTRY_BYTES;
+            long data = (long) LONGS.getOpaque(segment, entry);
+            if (data != 0 && ((long) LONGS.getOpaque(segment, entry + 8) ^ data) == hash) {
+                hits.increment();
+                return data;
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * Speichert das Ergebnis einer Suche. Der Eintrag für tiefere Suchen wird nur ersetzt, wenn die neue
+     * Suche mindestens genauso tief war, er dieselbe Stellung enthält oder aus einer früheren Suche stammt;
+     * sonst wird in den immer ersetzten Eintrag geschrieben.
+     *
+     * @param hash  Der Zobrist-Schlüssel der Stellung.
+     * @param move  Der beste Zug oder {@link Move#NONE}.
+     * @param score Die Bewertung, muss in 16 Bit passen.
+     * @param depth Die Suchtiefe (0 bis 255).
+     * @param bound {@link #UPPER}, {@link #LOWER} oder {@link #EXACT}.
+     */
+    public void store(long hash, int move, int score, int depth, int bound) {
+        stores.increment();
+        ByteBuffer segment = segments[(int) ((hash & mask) >>> SEGMENT_SHIFT)];
+        int offset = (int) (hash & mask & SEGMENT_MASK) * BUCKET_BYTES;
+        int currentAge = age;
+
+        long old = (long) LONGS.getOpaque(segment, offset);
+        boolean sameKey = old != 0 && ((long) LONGS.getOpaque(segment, offset + 8) ^ old) == hash;
+        int entry = offset;
+        if (old != 0 && !sameKey && depth < depth(old) && age(old) == currentAge) {
+            entry = offset + ENTRY_BYTES;
+        }
+        if (sameKey && move == Move.NONE) {
+            move = move(old); // Den bekannten besten Zug nicht mit "kein Zug" überschreiben
+        }
+
+        long data = (move & 0xffffffL)
+                | (score & 0xffffL) << SCORE_SHIFT
+                | (long) (depth & 0xff) << DEPTH_SHIFT
+                | (long) bound << BOUND_SHIFT
+                | (long) currentAge << AGE_SHIFT;
+        LONGS.setOpaque(segment, entry, data);
+        LONGS.setOpaque(segment, entry + 8, hash ^ data);
+    }
+
+    /**
+     * Beginnt eine neue Suche: Einträge der bisherigen Suchen werden ab jetzt bevorzugt ersetzt.
+     */
+    public void newSearch() {
+        age = (age + 1) & AGE_MASK;
+    }
+
+    /**
+     * Leert die Tabelle und setzt die Statistik zurück.
+     */
+    public void clear() {
+        for (ByteBuffer segment : segments) {
+            for (int i = 0; i < segment.capacity(); i += 8) {
+                LONGS.setOpaque(segment, i, 0L);
+            }
+        }
+        probes.reset();
+        hits.reset();
+        stores.reset();
+    }
+
+    /**
+     * Gibt den Zug eines Eintrags zurück.
+     */
+    public static int move(long data) {
+        return (int) (data & 0xffffff);
+    }
+
+    /**
+     * Gibt die Bewertung eines Eintrags zurück.
+     */
+    public static int score(long data) {
+        return (short) (data >>> SCORE_SHIFT);
+    }
+
+    /**
+     * Gibt die Suchtiefe eines Eintrags zurück.
+     */
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xff;
+    }
+
+    /**
+     * Gibt die Art der Bewertung eines Eintrags zurück ({@link #UPPER}, {@link #LOWER} oder {@link #EXACT}).
+     */
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 3;
+    }
+
+    private static int age(long data) {
+        return (int) (data >>> AGE_SHIFT) & AGE_MASK;
+    }
+
+    /**
+     * Gibt den Anteil der Treffer an allen Abfragen zurück.
+     *
+     * @return Die Trefferquote zwischen 0 und 1.
+     */
+    public double hitRate() {
+        long total = probes.sum();
+        return total == 0 ? 0 : (double) hits.sum() / total;
+    }
+
+    /**
+     * Schätzt den Füllstand aus den ersten 1000 Buckets: Anteil der Einträge aus der aktuellen Suche
+     * in Promille (wie "hashfull" bei UCI).
+     *
+     * @return Der Füllstand in Promille.
+     */
+    public int hashfull() {
+        ByteBuffer segment = segments[0];
+        int buckets = (int) Math.min(1000, mask + 1);
+        int currentAge = age;
+        int used = 0;
+        for (int i = 0; i < buckets; i++) {
+            for (int slot = 0; slot < 2; slot++) {
+                long data = (long) LONGS.getOpaque(segment, i * BUCKET_BYTES + slot * ENTRY_BYTES);
+                if (data != 0 && age(data) == currentAge) {
+                    used++;
+                }
+            }
+        }
+        return used * 1000 / (2 * buckets);
+    }
+
+    /**
+     * Gibt die Größe der Tabelle in MB zurück.
+     *
+     * @return Die tatsächliche Größe nach dem Abrunden.
+     */
+    public int getMegabytes() {
+        return megabytes;
+    }
+
+    /**
+     * Beschreibt Größe, Trefferquote und Füllstand für die Ausgabe.
+     *
+     * @return Die Beschreibung.
+     */
+    public String describe() {
+        return String.format("Hashtabelle: %d MB, %d Abfragen, Treffer %.1f %%, %d Einträge geschrieben, Füllstand %.1f %%",
+                megabytes, probes.sum(), 100 * hitRate(), stores.sum(), hashfull() / 10.0);
+    }
+}
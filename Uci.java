@@ -0,0 +1,409 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Das UCI-Protokoll (Universal Chess Interface), damit die Engine in Schach-Oberflächen, Turnierprogrammen
+ * und eigenen Steuerprogrammen läuft.
+ * <p>
+ * Die Eingabe liest ein eigener Thread. "stop" und "ponderhit" beantwortet er sofort, auch während die Engine
+ * rechnet; alle Befehle reiht er außerdem in eine Warteschlange ein, die der aufrufende Thread der Reihe nach
+ * abarbeitet. So wirkt ein "stop" auch auf ein "go", das noch in der Warteschlange steht. "isready" wird nur
+ * während einer Suche sofort beantwortet, sonst erst nach den vorher eingereihten Befehlen, damit die
+ * Oberfläche darauf warten kann, dass z.B. "setoption" oder "position" ausgeführt sind. Die Suche
+ * selbst läuft in einem dritten Thread ({@link Engine#startSearch}) und gibt "info" und "bestmove" aus.
+ * <p>
+ * "position ... moves" wird inkrementell angewendet: beginnt die neue Zugliste mit den bereits ausgeführten
+ * Zügen derselben Ausgangsstellung, werden nur die neuen Züge ausgeführt; bei einer Abweichung werden die
+ * Züge ab dort zurückgenommen.
+ */
+public class Uci {
+    /**
+     * Die Größe der Transpositionstabelle in MB, wenn die Oberfläche nichts anderes setzt.
+     */
+    public static final int DEFAULT_HASH = 16;
+    private static final int MAX_HASH = 4096;
+    private static final int MAX_THREADS = 256;
+    private static final String STARTPOS = "startpos";
+    private static final String QUIT = "quit";
+
+    private final Scanner in;
+    private final PrintStream out;
+    private final BlockingQueue<String> commands = new LinkedBlockingQueue<>();
+    private volatile Engine engine;
+    private int hashMegabytes = DEFAULT_HASH;
+    private int threads = 1;
+
+    // Die Stellung: Ausgangsstellung ("startpos" oder FEN) und die darauf ausgeführten Züge
+    private Board board = new Board();
+    private String basePosition = STARTPOS;
+    private final List<String> playedMoves = new ArrayList<>();
+
+    // Bei "go infinite" bzw. "go ponder" wird "bestmove" erst nach "stop" bzw. "ponderhit" ausgegeben
+    private final Object hold = new Object();
+    private boolean waitForStop;
+    private boolean waitForPonderhit;
+
+    /**
+     * Konstruktor für Uci.
+     *
+     * @param in  Die Eingabe der Oberfläche.
+     * @param out Die Ausgabe an die Oberfläche.
+     */
+    public Uci(Scanner in, PrintStream out) {
+        this.in = in;
+        this.out = out;
+        engine = newEngine();
+    }
+
+    /**
+     * Arbeitet die Befehle ab, bis "quit" kommt oder die Eingabe endet.
+     *
+     * @param firstLine Eine bereits gelesene erste Zeile (z.B. "uci") oder null.
+     */
+    public void run(String firstLine) {
+        if (firstLine != null) {
+            commands.add(firstLine.trim());
+        }
+        Thread reader = new Thread(this::readInput, "UCI-Eingabe");
+        reader.setDaemon(true);
+        reader.start();
+        try {
+            while (true) {
+                String line = commands.take();
+                if (line.equals(QUIT)) {
+                    break;
+                }
+                execute(line);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stopSearch();
+        }
+    }
+
+    /**
+     * Liest die Eingabe im eigenen Thread.
+     */
+    private void readInput() {
+        while (in.hasNextLine()) {
+            String line = in.nextLine().trim();
+            String command = line.split("\\s+", 2)[0];
+            switch (command) {
+                case "isready":
+                    if (engine.isSearching() && commands.isEmpty()) {
+                        send("readyok");
+                        continue;
+                    }
+                    break;
+                case "stop":
+                    stop();
+                    break;
+                case "ponderhit":
+                    ponderhit();
+                    break;
+                case QUIT:
+                    stop();
+                    commands.add(QUIT);
+                    return;
+                default:
+                    break;
+            }
+            if (!line.isEmpty()) {
+                commands.add(line);
+            }
+        }
+        stop();
+        commands.add(QUIT);
+    }
+
+    /**
+     * Führt einen Befehl im Befehls-Thread aus.
+     */
+    private void execute(String line) {
+        String[] tokens = line.split("\\s+");
+        try {
+            switch (tokens[0]) {
+                case "isready":
+                    send("readyok");
+                    break;
+                case "uci":
+                    send("id name ChessinJava");
+                    send("id author Peanut1906");
+                    send("option name Hash type spin default " + DEFAULT_HASH + " min 1 max " + MAX_HASH);
+                    send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                    send("option name Ponder type check default false");
+                    send("uciok");
+                    break;
+                case "setoption":
+                    stopSearch();
+                    setOption(tokens);
+                    break;
+                case "ucinewgame":
+                    stopSearch();
+                    engine.getTable().clear();
+                    setPosition(STARTPOS, new String[0], 0);
+                    break;
+                case "position":
+                    stopSearch();
+                    position(tokens);
+                    break;
+                case "go":
+                    go(tokens);
+                    break;
+                case "stop":
+                    // Wiederholt in der Reihenfolge der Befehle, falls das "go" noch nicht gestartet war
+                    stop();
+                    break;
+                case "ponderhit":
+                    ponderhit();
+                    break;
+                default:
+                    send("info string Unbekannter Befehl: " + line);
+                    break;
+            }
+        } catch (RuntimeException e) {
+            send("info string Fehler in \"" + line + "\": " + e.getMessage());
+        }
+    }
+
+    /**
+     * "setoption name &lt;Name&gt; value &lt;Wert&gt;".
+     */
+    private void setOption(String[] tokens) {
+        String name = "";
+        String value = "";
+        for (int i = 1; i < tokens.length; i++) {
+            if (tokens[i].equals("name") && i + 1 < tokens.length) {
+                name = tokens[++i];
+            } else if (tokens[i].equals("value") && i + 1 < tokens.length) {
+                value = tokens[++i];
+            }
+        }
+        switch (name.toLowerCase()) {
+            case "hash":
+                hashMegabytes = Math.max(1, Math.min(MAX_HASH, Integer.parseInt(value)));
+                engine = newEngine();
+                break;
+            case "threads":
+                threads = Math.max(1, Math.min(MAX_THREADS, Integer.parseInt(value)));
+                engine.setThreads(threads);
+                break;
+            case "ponder":
+                break; // Die Oberfläche entscheidet mit "go ponder", ob gepondert wird
+            default:
+                send("info string Unbekannte Option: " + name);
+                break;
+        }
+    }
+
+    /**
+     * "position [startpos | fen &lt;FEN&gt;] [moves &lt;Zug&gt; ...]".
+     */
+    private void position(String[] tokens) {
+        int index = 1;
+        String base;
+        if (tokens.length > 1 && tokens[1].equals("fen")) {
+            StringBuilder fen = new StringBuilder();
+            for (index = 2; index < tokens.length && !tokens[index].equals("moves"); index++) {
+                fen.append(fen.length() > 0 ? " " : "").append(tokens[index]);
+            }
+            base = fen.toString();
+        } else {
+            base = STARTPOS;
+            index = 2;
+        }
+        setPosition(base, tokens, index < tokens.length && tokens[index].equals("moves") ? index + 1 : tokens.length);
+    }
+
+    /**
+     * Stellt die Stellung her: nur die Züge ab der ersten Abweichung von den bereits ausgeführten werden
+     * zurückgenommen bzw. neu ausgeführt.
+     *
+     * @param base  "startpos" oder eine FEN.
+     * @param moves Die Befehlszeile mit den Zügen.
+     * @param first Der Index des ersten Zuges in {@code moves}.
+     */
+    private void setPosition(String base, String[] moves, int first) {
+        if (!base.equals(basePosition)) {
+            Board start;
+            try {
+                start = base.equals(STARTPOS) ? new Board() : new Board(base);
+            } catch (RuntimeException e) {
+                send("info string Ungültige FEN: " + base);
+                return;
+            }
+            board = start;
+            basePosition = base;
+            playedMoves.clear();
+        }
+        int common = 0;
+        while (common < playedMoves.size() && first + common < moves.length
+                && playedMoves.get(common).equals(moves[first + common])) {
+            common++;
+        }
+        while (playedMoves.size() > common) {
+            board.unmakeMove();
+            playedMoves.remove(playedMoves.size() - 1);
+        }
+        for (int i = first + common; i < moves.length; i++) {
+            int move = board.findMove(moves[i]);
+            if (move == Move.NONE) {
+                send("info string Ungültiger Zug: " + moves[i]);
+                return;
+            }
+            board.makeMove(move);
+            playedMoves.add(moves[i]);
+        }
+    }
+
+    /**
+     * "go [depth &lt;N&gt;] [nodes &lt;N&gt;] [movetime &lt;ms&gt;] [wtime &lt;ms&gt;] [btime &lt;ms&gt;] [winc &lt;ms&gt;]
+     * [binc &lt;ms&gt;] [movestogo &lt;N&gt;] [infinite] [ponder]".
+     */
+    private void go(String[] tokens) {
+        stopSearch();
+        int depth = Engine.MAX_PLY - 1;
+        long nodes = 0;
+        long moveTime = 0;
+        long[] time = {-1, -1};
+        long[] increment = {0, 0};
+        int movesToGo = 0;
+        boolean infinite = false;
+        boolean ponder = false;
+        for (int i = 1; i < tokens.length; i++) {
+            boolean hasValue = i + 1 < tokens.length;
+            switch (tokens[i]) {
+                case "infinite":
+                    infinite = true;
+                    break;
+                case "ponder":
+                    ponder = true;
+                    break;
+                case "depth":
+                    depth = hasValue ? Integer.parseInt(tokens[++i]) : depth;
+                    break;
+                case "nodes":
+                    nodes = hasValue ? Long.parseLong(tokens[++i]) : nodes;
+                    break;
+                case "movetime":
+                    moveTime = hasValue ? Long.parseLong(tokens[++i]) : moveTime;
+                    break;
+                case "wtime":
+                    time[Board.WHITE] = hasValue ? Long.parseLong(tokens[++i]) : -1;
+                    break;
+                case "btime":
+                    time[Board.BLACK] = hasValue ? Long.parseLong(tokens[++i]) : -1;
+                    break;
+                case "winc":
+                    increment[Board.WHITE] = hasValue ? Long.parseLong(tokens[++i]) : 0;
+                    break;
+                case "binc":
+                    increment[Board.BLACK] = hasValue ? Long.parseLong(tokens[++i]) : 0;
+                    break;
+                case "movestogo":
+                    movesToGo = hasValue ? Integer.parseInt(tokens[++i]) : 0;
+                    break;
+                default:
+                    break; // z.B. "searchmoves" wird nicht unterstützt
+            }
+        }
+
+        Engine current = engine;
+        current.setDepth(depth);
+        current.setNodes(nodes);
+        int us = board.getSideToMove();
+        if (moveTime > 0) {
+            current.setMoveTime(moveTime);
+        } else if (time[us] >= 0 && !infinite) {
+            current.setClock(time[us], increment[us], movesToGo);
+        } else {
+            current.setMoveTime(0);
+        }
+        synchronized (hold) {
+            waitForStop = infinite;
+            waitForPonderhit = ponder;
+        }
+        current.setPonder(ponder);
+        current.startSearch(board, move -> finishSearch(current, move));
+    }
+
+    /**
+     * Gibt im Such-Thread den besten Zug aus, bei "go infinite" bzw. "go ponder" erst nach "stop" bzw. "ponderhit".
+     */
+    private void finishSearch(Engine current, int move) {
+        synchronized (hold) {
+            while (waitForStop || waitForPonderhit) {
+                try {
+                    hold.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        Engine.Info info = current.getLastInfo();
+        int[] pv = info != null ? info.getPv() : new int[0];
+        send("bestmove " + Move.toString(move) + (pv.length > 1 ? " ponder " + Move.toString(pv[1]) : ""));
+    }
+
+    /**
+     * Bricht die Suche ab; ein zurückgehaltener bester Zug wird ausgegeben.
+     */
+    private void stop() {
+        engine.stop();
+        synchronized (hold) {
+            waitForStop = false;
+            waitForPonderhit = false;
+            hold.notifyAll();
+        }
+    }
+
+    /**
+     * Der erwartete Zug wurde gespielt: die Ponder-Suche läuft mit Zeitgrenzen weiter.
+     */
+    private void ponderhit() {
+        engine.ponderhit();
+        synchronized (hold) {
+            waitForPonderhit = false;
+            hold.notifyAll();
+        }
+    }
+
+    /**
+     * Beendet eine laufende Suche und wartet auf ihren "bestmove".
+     */
+    private void stopSearch() {
+        stop();
+        engine.waitForSearch();
+    }
+
+    private Engine newEngine() {
+        Engine created = new Engine(hashMegabytes);
+        created.setThreads(threads);
+        created.setListener(this::sendInfo);
+        return created;
+    }
+
+    /**
+     * Meldet eine abgeschlossene Iteration.
+     */
+    private void sendInfo(Engine.Info info) {
+        int mate = info.getMateIn();
+        send("info depth " + info.getDepth()
+                + (mate != 0 ? " score mate " + mate : " score cp " + info.getScore())
+                + " nodes " + info.getNodes() + " nps " + info.getNps() + " time " + info.getMillis()
+                + " hashfull " + engine.getTable().hashfull() + " pv " + info.pvString());
+    }
+
+    private void send(String line) {
+        synchronized (out) {
+            out.println(line);
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Zufallsschlüssel für das Zobrist-Hashing von Stellungen.
+ * Der Schlüssel einer Stellung ist das XOR der Schlüssel aller Figuren auf ihren Feldern,
+ * der Rochaderechte, der en-passant-Linie und der Seite am Zug.
+ */
+public final class Zobrist {
+    /**
+     * Schlüssel je Farbe, Figurentyp und Feld.
+     */
+    static final long[][][] PIECES = new long[2][6][64];
+    /**
+     * Schlüssel je Kombination der Rochaderechte.
+     */
+    static final long[] CASTLING = new long[16];
+    /**
+     * Schlüssel je Linie des en-passant-Feldes.
+     */
+    static final long[] EN_PASSANT = new long[8];
+    /**
+     * Schlüssel, wenn Schwarz am Zug ist.
+     */
+    static final long SIDE;
+
+    static {
+        // Fester Startwert, damit die Schlüssel bei jedem Start gleich sind
+        long[] seed = {0x3243f6a8885a308dL};
+        for (int color = 0; color < 2; color++) {
+            for (int type = 0; type < 6; type++) {
+                for (int square = 0; square < 64; square++) {
+                    PIECES[color][type][square] = next(seed);
+                }
+            }
+        }
+        for (int i = 0; i < CASTLING.length; i++) {
+            CASTLING[i] = next(seed);
+        }
+        for (int i = 0; i < EN_PASSANT.length; i++) {
+            EN_PASSANT[i] = next(seed);
+        }
+        SIDE = next(seed);
+    }
+
+    private Zobrist() {
+        // Nur statische Schlüssel
+    }
+
+    /**
+     * SplitMix64-Zufallszahlen.
+     */
+    private static long next(long[] seed) {
+        long z = seed[0] += 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,26 @@
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Startet die Benchmarks. Nimmt dieselben Argumente wie der JMH-Runner, aktiviert aber immer den
+ * GC-Profiler ({@code -prof gc}), damit zu jeder Messung auch die Allokationen pro Aufruf ausgegeben werden.
+ */
+public final class BenchmarkMain {
+    private BenchmarkMain() {
+        // Nur main
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        Options options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,60 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Spielt eine vollständige Partie so nach, wie die Spielschleife sie ausführt: jeder Zug wird mit
+ * {@code movePiece} geprüft und ausgeführt, danach wird gefragt, ob der Gegner matt ist.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameReplayBenchmark {
+    /**
+     * Die Züge als Spalte, Reihe, Spalte, Reihe.
+     */
+    private int[][] moves;
+
+    @Setup
+    public void setUp() {
+        moves = new int[Positions.OPERA_GAME.length][];
+        for (int i = 0; i < moves.length; i++) {
+            String move = Positions.OPERA_GAME[i];
+            moves[i] = new int[] {move.charAt(0) - 'a', move.charAt(1) - '1', move.charAt(2) - 'a', move.charAt(3) - '1'};
+        }
+        // Die Partie muss mit Matt enden, sonst misst der Benchmark etwas anderes
+        if (replayGame() != moves.length + 1) {
+            throw new IllegalStateException("Die Partie endet nicht mit Matt");
+        }
+    }
+
+    @Benchmark
+    public int replayGame() {
+        Object board = Rules.newBoard();
+        int color = Rules.WHITE;
+        int plies = 0;
+        for (int[] move : moves) {
+            Rules.movePiece(board, move[0], move[1], move[2], move[3], Rules.colorName(color), 4);
+            color = 1 - color;
+            plies++;
+            if (Rules.isCheckmate(board, Rules.colorName(color))) {
+                plies++;
+            }
+        }
+        return plies;
+    }
+}
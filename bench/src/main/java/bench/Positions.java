@@ -0,0 +1,74 @@
+package bench;
+
+/**
+ * Feste Stellungen für die Benchmarks. Die Stellungen ändern sich nicht, damit Messungen
+ * verschiedener Stände vergleichbar bleiben.
+ */
+final class Positions {
+    /**
+     * Mittelspielstellungen mit vielen Figuren und Zügen.
+     */
+    static final String[] MIDDLEGAME = {
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4",
+            "r2q1rk1/pp2bppp/2n1pn2/3p4/3P4/2NBPN2/PP3PPP/R2Q1RK1 w - - 0 10",
+            "r1bq1rk1/ppp2ppp/2np1n2/2b1p3/2B1P3/2NP1N2/PPP2PPP/R1BQ1RK1 b - - 0 7",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+    };
+
+    /**
+     * Endspielstellungen mit wenigen Figuren.
+     */
+    static final String[] ENDGAME = {
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "8/8/4k3/8/2p5/8/B2P2K1/8 w - - 0 1",
+            "8/5pk1/6p1/8/5P2/6PK/8/8 b - - 0 1",
+            "6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1",
+            "8/8/8/4k3/8/8/3QK3/8 b - - 0 1",
+    };
+
+    /**
+     * Stellungen, in denen die Seite am Zug im Schach, matt oder patt ist.
+     */
+    static final String[] CHECK = {
+            "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3",
+            "r1bqkb1r/pppp1Qpp/2n2n2/4p3/2B1P3/8/PPPP1PPP/RNB1K1NR b KQkq - 0 4",
+            "7k/5Q2/6K1/8/8/8/8/8 b - - 0 1",
+            "rnbqkbnr/ppp2ppp/8/1B1pp3/4P3/8/PPPP1PPP/RNBQK1NR b KQkq - 1 3",
+            "4k3/8/5N2/8/8/8/8/4R1K1 b - - 0 1",
+    };
+
+    /**
+     * Eine vollständige Partie in Koordinatenschreibweise (Morphy gegen Herzog von Braunschweig und
+     * Graf Isouard, Paris 1858), endet mit Matt.
+     */
+    static final String[] OPERA_GAME = {
+            "e2e4", "e7e5", "g1f3", "d7d6", "d2d4", "c8g4", "d4e5", "g4f3", "d1f3", "d6e5",
+            "f1c4", "g8f6", "f3b3", "d8e7", "b1c3", "c7c6", "c1g5", "b7b5", "c3b5", "c6b5",
+            "c4b5", "b8d7", "e1c1", "a8d8", "d1d7", "d8d7", "h1d1", "e7e6", "b5d7", "f6d7",
+            "b3b8", "d7b8", "d1d8",
+    };
+
+    private Positions() {
+        // Nur Konstanten
+    }
+
+    /**
+     * Gibt die Stellungen einer Gruppe zurück.
+     *
+     * @param corpus "middlegame", "endgame" oder "check".
+     * @return Die FEN-Strings.
+     */
+    static String[] corpus(String corpus) {
+        switch (corpus) {
+            case "middlegame":
+                return MIDDLEGAME;
+            case "endgame":
+                return ENDGAME;
+            case "check":
+                return CHECK;
+            default:
+                throw new IllegalArgumentException("Unbekannte Stellungsgruppe: " + corpus);
+        }
+    }
+}
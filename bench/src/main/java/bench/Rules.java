@@ -0,0 +1,237 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+
+/**
+ * Zugriff auf die Regelklassen des Spiels ({@code Board}, {@code Piece}, {@code MoveGenerator}).
+ * Diese liegen im Default-Package und können aus einem benannten Package nicht importiert werden;
+ * JMH verlangt aber Benchmarks in einem benannten Package. Die Aufrufe laufen deshalb über
+ * {@code static final} MethodHandles, die der JIT wie direkte Aufrufe einbindet.
+ */
+final class Rules {
+    static final int WHITE = 0;
+    static final int BLACK = 1;
+    static final int PAWN = 0;
+    static final int KING = 5;
+    static final int NONE = 6;
+
+    private static final Class<?> BOARD = load("Board");
+    private static final Class<?> PIECE = load("Piece");
+
+    private static final MethodHandle NEW_BOARD = constructor(MethodType.methodType(void.class));
+    private static final MethodHandle NEW_BOARD_FEN = constructor(MethodType.methodType(void.class, String.class));
+    private static final MethodHandle GET_PIECE = virtual(BOARD, "getPiece", PIECE, int.class, int.class);
+    private static final MethodHandle GET_PIECE_TYPE = virtual(BOARD, "getPieceType", int.class, int.class);
+    private static final MethodHandle GET_COLOR = virtual(PIECE, "getColor", String.class);
+    private static final MethodHandle GET_SIDE_TO_MOVE = virtual(BOARD, "getSideToMove", int.class);
+    private static final MethodHandle IS_IN_CHECK = virtual(BOARD, "isInCheck", boolean.class, String.class);
+    private static final MethodHandle IS_CHECKMATE = virtual(BOARD, "isCheckmate", boolean.class, String.class);
+    private static final MethodHandle HAS_ANY_LEGAL_MOVE = virtual(BOARD, "hasAnyLegalMove", boolean.class, String.class);
+    private static final MethodHandle IS_STALEMATE = virtual(BOARD, "isStalemate", boolean.class);
+    private static final MethodHandle MOVE_PIECE = virtual(BOARD, "movePiece", void.class,
+            int.class, int.class, int.class, int.class, String.class, int.class);
+    private static final MethodHandle VALIDATE_MOVE = virtual(PIECE, "validateMove", Boolean.class,
+            Array.newInstance(PIECE, 0, 0).getClass(), int.class, int.class, int.class, int.class);
+    private static final MethodHandle GENERATE_MOVES = generic(find(load("MoveGenerator"), "generateMoves",
+            MethodType.methodType(int.class, BOARD, int[].class), true));
+
+    private Rules() {
+        // Nur statische Methoden
+    }
+
+    /**
+     * Erzeugt ein Brett in der Grundstellung.
+     */
+    static Object newBoard() {
+        try {
+            return NEW_BOARD.invokeExact();
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * Erzeugt ein Brett aus einer FEN.
+     */
+    static Object newBoard(String fen) {
+        try {
+            return NEW_BOARD_FEN.invokeExact(fen);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * Kopiert die Figurenansicht eines Bretts (jedes Brett hat seine eigene), damit
+     * {@code validateMove} auf einem festen Array arbeitet.
+     */
+    static Object[][] snapshot(Object board) {
+        Object[][] copy = (Object[][]) Array.newInstance(PIECE, 8, 8);
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                copy[row][col] = getPiece(board, row, col);
+            }
+        }
+        return copy;
+    }
+
+    static Object getPiece(Object board, int row, int col) {
+        try {
+            return GET_PIECE.invokeExact(board, row, col);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static int getPieceType(Object board, int square) {
+        try {
+            return (int) GET_PIECE_TYPE.invokeExact(board, square);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static String getColor(Object piece) {
+        try {
+            return (String) GET_COLOR.invokeExact(piece);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static int getSideToMove(Object board) {
+        try {
+            return (int) GET_SIDE_TO_MOVE.invokeExact(board);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static boolean isInCheck(Object board, String color) {
+        try {
+            return (boolean) IS_IN_CHECK.invokeExact(board, color);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static boolean isCheckmate(Object board, String color) {
+        try {
+            return (boolean) IS_CHECKMATE.invokeExact(board, color);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static boolean hasAnyLegalMove(Object board, String color) {
+        try {
+            return (boolean) HAS_ANY_LEGAL_MOVE.invokeExact(board, color);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static boolean isStalemate(Object board) {
+        try {
+            return (boolean) IS_STALEMATE.invokeExact(board);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * Führt einen Zug wie im Spiel aus (mit Prüfung); wirft die {@code InvalidMoveException} des Spiels weiter.
+     */
+    static void movePiece(Object board, int fromCol, int fromRow, int toCol, int toRow, String color, int promotion) {
+        try {
+            MOVE_PIECE.invokeExact(board, fromCol, fromRow, toCol, toRow, color, promotion);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static boolean validateMove(Object piece, Object[][] view, int fromCol, int fromRow, int toCol, int toRow) {
+        try {
+            return (boolean) VALIDATE_MOVE.invokeExact(piece, view, fromCol, fromRow, toCol, toRow);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static int generateMoves(Object board, int[] moves) {
+        try {
+            return (int) GENERATE_MOVES.invokeExact(board, moves);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static String colorName(int color) {
+        return color == WHITE ? "white" : "black";
+    }
+
+    private static Class<?> load(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Klasse " + name + " nicht gefunden, zuerst \"mvn install\" ausführen", e);
+        }
+    }
+
+    private static MethodHandle constructor(MethodType type) {
+        try {
+            return generic(MethodHandles.publicLookup().findConstructor(BOARD, type));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MethodHandle virtual(Class<?> owner, String name, Class<?> returnType, Class<?>... parameters) {
+        return generic(find(owner, name, MethodType.methodType(returnType, parameters), false));
+    }
+
+    private static MethodHandle find(Class<?> owner, String name, MethodType type, boolean isStatic) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            return isStatic ? lookup.findStatic(owner, name, type) : lookup.findVirtual(owner, name, type);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Ersetzt die Typen aus dem Default-Package durch Object bzw. Object[][] und Boolean durch boolean,
+     * damit {@code invokeExact} hier ohne diese Typen aufgerufen werden kann.
+     */
+    private static MethodHandle generic(MethodHandle handle) {
+        MethodType type = handle.type();
+        for (int i = 0; i < type.parameterCount(); i++) {
+            type = type.changeParameterType(i, erase(type.parameterType(i)));
+        }
+        type = type.changeReturnType(type.returnType() == Boolean.class ? boolean.class : erase(type.returnType()));
+        return handle.asType(type);
+    }
+
+    private static Class<?> erase(Class<?> type) {
+        if (type == BOARD || type == PIECE) {
+            return Object.class;
+        }
+        if (type.isArray() && type.getComponentType().isArray() && type.getComponentType().getComponentType() == PIECE) {
+            return Object[][].class;
+        }
+        return type;
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new IllegalStateException(t);
+    }
+}
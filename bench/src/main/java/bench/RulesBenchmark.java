@@ -0,0 +1,210 @@
+package bench;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks für die Regelprüfung: Zugprüfung von König und Bauer, Zuggenerierung, Schach-, Matt- und
+ * Patterkennung. Jede Methode läuft über alle Stellungen einer Gruppe und gibt eine Summe zurück, damit
+ * der JIT die Aufrufe nicht entfernen kann.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulesBenchmark {
+    @Param({"middlegame", "endgame", "check"})
+    public String corpus;
+
+    private Object[] boards;
+    private Object[][][] views;
+    private String[] sideToMove;
+    private String[] opponent;
+    private int[] sideIndex;
+    private final int[] moves = new int[256];
+
+    /**
+     * Zu prüfende Züge des Königs: Stellung, Figur, Start- und Zielfeld.
+     */
+    private Candidates kingMoves;
+    /**
+     * Zu prüfende Züge der Bauern.
+     */
+    private Candidates pawnMoves;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] fens = Positions.corpus(corpus);
+        boards = new Object[fens.length];
+        views = new Object[fens.length][][];
+        sideToMove = new String[fens.length];
+        opponent = new String[fens.length];
+        sideIndex = new int[fens.length];
+        kingMoves = new Candidates();
+        pawnMoves = new Candidates();
+        for (int i = 0; i < fens.length; i++) {
+            boards[i] = Rules.newBoard(fens[i]);
+            // Die Figurenansicht ist statisch, deshalb direkt nach dem Erzeugen kopieren
+            views[i] = Rules.snapshot(boards[i]);
+            sideIndex[i] = Rules.getSideToMove(boards[i]);
+            sideToMove[i] = Rules.colorName(sideIndex[i]);
+            opponent[i] = Rules.colorName(1 - sideIndex[i]);
+            collectCandidates(i);
+        }
+    }
+
+    /**
+     * Sammelt für König und Bauern der Seite am Zug alle Zielfelder in Reichweite, gültige wie ungültige.
+     */
+    private void collectCandidates(int index) {
+        Object[][] view = views[index];
+        int forward = sideIndex[index] == Rules.WHITE ? 1 : -1;
+        for (int square = 0; square < 64; square++) {
+            int row = square / 8;
+            int col = square % 8;
+            Object piece = view[row][col];
+            if (piece == null || !sideToMove[index].equals(Rules.getColor(piece))) {
+                continue;
+            }
+            int type = Rules.getPieceType(boards[index], square);
+            if (type == Rules.KING) {
+                for (int dr = -1; dr <= 1; dr++) {
+                    for (int dc = -2; dc <= 2; dc++) {
+                        if ((dr != 0 || dc != 0) && (dr == 0 || Math.abs(dc) < 2)) {
+                            kingMoves.add(index, piece, col, row, col + dc, row + dr);
+                        }
+                    }
+                }
+            } else if (type == Rules.PAWN) {
+                pawnMoves.add(index, piece, col, row, col, row + forward);
+                pawnMoves.add(index, piece, col, row, col, row + 2 * forward);
+                pawnMoves.add(index, piece, col, row, col - 1, row + forward);
+                pawnMoves.add(index, piece, col, row, col + 1, row + forward);
+            }
+        }
+    }
+
+    @Benchmark
+    public int kingValidateMove() {
+        return kingMoves.validate(views);
+    }
+
+    @Benchmark
+    public int pawnValidateMove() {
+        return pawnMoves.validate(views);
+    }
+
+    @Benchmark
+    public int generateLegalMoves() {
+        int total = 0;
+        for (Object board : boards) {
+            total += Rules.generateMoves(board, moves);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int isInCheck() {
+        int total = 0;
+        for (Object board : boards) {
+            if (Rules.isInCheck(board, "white")) {
+                total++;
+            }
+            if (Rules.isInCheck(board, "black")) {
+                total += 2;
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int isCheckmate() {
+        int total = 0;
+        for (int i = 0; i < boards.length; i++) {
+            if (Rules.isCheckmate(boards[i], sideToMove[i])) {
+                total++;
+            }
+            // So fragt die Spielschleife nach jedem Zug: ist der Gegner matt?
+            if (Rules.isCheckmate(boards[i], opponent[i])) {
+                total += 2;
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int hasAnyLegalMove() {
+        int total = 0;
+        for (int i = 0; i < boards.length; i++) {
+            if (Rules.hasAnyLegalMove(boards[i], sideToMove[i])) {
+                total++;
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int isStalemate() {
+        int total = 0;
+        for (int i = 0; i < boards.length; i++) {
+            if (Rules.isStalemate(boards[i])) {
+                total++;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Eine Liste von Zügen, die mit {@code validateMove} geprüft werden.
+     */
+    private static final class Candidates {
+        private int size;
+        private int[] board = new int[64];
+        private Object[] piece = new Object[64];
+        private int[] squares = new int[64 * 4];
+
+        void add(int index, Object p, int fromCol, int fromRow, int toCol, int toRow) {
+            if (toCol < 0 || toCol > 7 || toRow < 0 || toRow > 7) {
+                return;
+            }
+            if (size == board.length) {
+                board = Arrays.copyOf(board, size * 2);
+                piece = Arrays.copyOf(piece, size * 2);
+                squares = Arrays.copyOf(squares, size * 8);
+            }
+            board[size] = index;
+            piece[size] = p;
+            squares[4 * size] = fromCol;
+            squares[4 * size + 1] = fromRow;
+            squares[4 * size + 2] = toCol;
+            squares[4 * size + 3] = toRow;
+            size++;
+        }
+
+        int validate(Object[][][] views) {
+            int valid = 0;
+            for (int i = 0; i < size; i++) {
+                int s = 4 * i;
+                if (Rules.validateMove(piece[i], views[board[i]], squares[s], squares[s + 1], squares[s + 2], squares[s + 3])) {
+                    valid++;
+                }
+            }
+            return valid;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Prüft das Einlesen und Ausgeben von Stellungen in FEN ({@link Board#setFen}, {@link Board#toFen}).
+ */
+class FenTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        Board.START_FEN,
+        "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1",
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 b - - 12 47",
+        "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8"
+    })
+    void roundTrip(String fen) {
+        Board board = Board.fromFen(fen);
+        assertEquals(fen, board.toFen());
+        assertEquals(board.computeHash(), board.hash());
+        assertEquals(board.computePawnHash(), board.pawnHash());
+    }
+
+    @Test
+    void setFenResetsTheSameBoard() {
+        Board board = new Board();
+        board.playMove(board.findMove("e2e4"));
+        board.playMove(board.findMove("e7e5"));
+        board.setFen(Board.START_FEN);
+        assertEquals(0, board.getPly());
+        assertEquals(Board.START_FEN, board.toFen());
+        assertEquals(new Board().hash(), board.hash());
+        assertEquals("wp", board.getPiece(1, 4).toString());
+    }
+
+    @Test
+    void missingFieldsUseDefaults() {
+        assertEquals("4k3/8/8/8/8/8/8/4K3 w - - 0 1", Board.fromFen("  4k3/8/8/8/8/8/8/4K3").toFen());
+        assertEquals("4k3/8/8/8/8/8/8/4K3 b - - 5 9", Board.fromFen("4k3/8/8/8/8/8/8/4K3\tb - -  5 9 ").toFen());
+    }
+
+    @Test
+    void impossibleCastlingRightsAreDropped() {
+        assertEquals("4k3/8/8/8/8/8/8/K6R w - - 0 1", Board.fromFen("4k3/8/8/8/8/8/8/K6R w K - 0 1").toFen());
+        assertEquals("r3k2r/8/8/8/8/8/8/R3K1R1 w Qkq - 0 1", Board.fromFen("r3k2r/8/8/8/8/8/8/R3K1R1 w KQkq - 0 1").toFen());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "",
+        "8/8/8/8/8/8/8/8 w - - 0 1",
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBN w KQkq - 0 1",
+        "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+        "rnbqkbnr/pppppppp/44/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR/8 w KQkq - 0 1",
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkx - 0 1",
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e4 0 1",
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - a 1",
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 x",
+        "Pnbqkbnr/pppppppp/8/8/8/8/1PPPPPPP/RNBQKBNR w KQkq - 0 1"
+    })
+    void invalidFenIsRejected(String fen) {
+        assertThrows(IllegalArgumentException.class, () -> Board.fromFen(fen));
+    }
+}
@@ -0,0 +1,38 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Prüft den Zuggenerator und makeMove/unmakeMove mit den bekannten Perft-Zahlen
+ * (Grundstellung, "Kiwipete" und die Stellungen 3 bis 5 aus dem Chess Programming Wiki).
+ */
+class PerftTest {
+
+    @ParameterizedTest(name = "{0} Tiefe {1}")
+    @CsvSource(delimiter = ';', value = {
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1; 3; 8902",
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1; 4; 197281",
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1; 3; 97862",
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1; 4; 4085603",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1; 3; 2812",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1; 4; 43238",
+        "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1; 3; 9467",
+        "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1; 4; 422333",
+        "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8; 3; 62379",
+        "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8; 4; 2103487"
+    })
+    void perft(String fen, int depth, long expected) {
+        Board board = Board.fromFen(fen);
+        long hash = board.hash();
+        assertEquals(expected, new Perft(board, null).perft(depth));
+        assertEquals(hash, board.hash(), "Die Stellung muss nach dem Zählen unverändert sein");
+    }
+
+    @ParameterizedTest(name = "mit Hashtabelle, Tiefe {0}")
+    @CsvSource({"4, 4085603"})
+    void perftWithCache(int depth, long expected) {
+        Board board = Board.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        assertEquals(expected, new Perft(board, new PerftCache(16)).perft(depth));
+    }
+}
@@ -0,0 +1,82 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Prüft, dass mit {@link PgnWriter} geschriebene Partien von {@link PgnReader} mit denselben Zügen
+ * gelesen werden, und dass fehlerhafte Züge als Fehler gezählt werden.
+ */
+class PgnTest {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writtenGamesAreReadBack() throws IOException {
+        Random random = new Random(1);
+        int[] buffer = new int[Move.MAX_MOVES];
+        List<int[]> expected = new ArrayList<>();
+        Path file = directory.resolve("partien.pgn");
+        try (PgnWriter writer = PgnWriter.open(file, false)) {
+            for (int game = 0; game < 200; game++) {
+                Board board = game % 4 == 3 ? Board.fromFen(KIWIPETE) : new Board();
+                int plies = 20 + random.nextInt(150);
+                for (int i = 0; i < plies; i++) {
+                    int count = MoveGenerator.generateMoves(board, buffer);
+                    if (count == 0) {
+                        break;
+                    }
+                    board.makeMove(buffer[random.nextInt(count)]);
+                }
+                int[] moves = new int[board.getPly()];
+                for (int i = 0; i < moves.length; i++) {
+                    moves[i] = board.getHistoryMove(i);
+                }
+                expected.add(moves);
+
+                String fen = board.toFen();
+                writer.writeGame(board, "2024.01.01", "Weiß \"" + game + "\"", "Schwarz", null);
+                assertEquals(fen, board.toFen(), "Das Brett muss nach dem Schreiben unverändert sein");
+            }
+        }
+
+        List<int[]> actual = new ArrayList<>();
+        List<String> white = new ArrayList<>();
+        PgnReader reader = new PgnReader(file);
+        reader.read(game -> {
+            actual.add(game.getMoves());
+            white.add(game.getTag("White"));
+            return true;
+        });
+        assertEquals(0, reader.getErrors());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), actual.get(i), "Partie " + i);
+            assertEquals("Weiß \"" + i + "\"", white.get(i));
+        }
+    }
+
+    @Test
+    void ambiguousOrIncompleteMovesAreErrors() throws IOException {
+        Path file = directory.resolve("fehler.pgn");
+        Files.write(file, String.join("\n",
+                "[Event \"Mehrdeutig\"]", "", "1. Nf3 d5 2. d3 e5 3. Nd2 *", "",
+                "[Event \"Umwandlung ohne Figur\"]", "[SetUp \"1\"]", "[FEN \"4k3/P7/8/8/8/8/8/4K3 w - - 0 1\"]", "", "1. a8 *", "",
+                "[Event \"Eindeutig\"]", "", "1. Nf3 d5 2. d3 e5 3. Nbd2 *", "").getBytes(StandardCharsets.UTF_8));
+        PgnReader reader = new PgnReader(file);
+        reader.read(game -> true);
+        assertEquals(1, reader.getGames());
+        assertEquals(2, reader.getErrors());
+    }
+}
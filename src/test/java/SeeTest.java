@@ -0,0 +1,32 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Prüft die Abtauschbewertung ({@link Board#see(int)}) an Stellungen mit bekanntem Ergebnis.
+ */
+class SeeTest {
+
+    @ParameterizedTest(name = "{1} in {0}")
+    @CsvSource(delimiter = ';', value = {
+        // Ungedeckter Bauer
+        "1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1; e1e5; 100",
+        // Dame schlägt einen vom Bauern gedeckten Bauern
+        "k7/8/3p4/4p3/8/8/4Q3/7K w - - 0 1; e2e5; -800",
+        // Bauer schlägt einen gedeckten Springer
+        "k7/8/3p4/4n3/3P4/8/8/7K w - - 0 1; d4e5; 220",
+        // Turm gegen gedeckten Bauern, ohne und mit Röntgenangriff des zweiten Turms
+        "k3r3/8/8/4p3/8/8/4R3/7K w - - 0 1; e2e5; -400",
+        "k3r3/8/8/4p3/8/8/4R3/4R2K w - - 0 1; e2e5; 100",
+        // Umwandlung auf ein ungedecktes Feld
+        "k7/4P3/8/8/8/8/8/7K w - - 0 1; e7e8q; 800"
+    })
+    void see(String fen, String move, int expected) {
+        Board board = Board.fromFen(fen);
+        int legal = board.findMove(move);
+        assertNotEquals(Move.NONE, legal, "Der Zug muss legal sein");
+        assertEquals(expected, board.see(legal));
+    }
+}